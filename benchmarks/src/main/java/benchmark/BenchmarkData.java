@@ -0,0 +1,57 @@
+package benchmark;
+
+import model.Cart;
+import model.Product;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+// Shared fixtures for the benchmarks: synthetic catalogs, carts and scratch directories
+final class BenchmarkData {
+    private static final String[] NAMES = { "Americano", "Latte", "Cappuccino", "Mocha", "Espresso",
+            "Green Tea", "Croissant", "Orange Juice", "Muffin", "Flat White" };
+
+    private BenchmarkData() {
+    }
+
+    static Product[] products(int count) {
+        Product[] products = new Product[count];
+        for (int i = 0; i < count; i++) {
+            products[i] = new Product(i + 1, NAMES[i % NAMES.length] + " " + (i + 1), 35 + (i % 60));
+        }
+        return products;
+    }
+
+    static Cart cart(Product[] products, int lines) {
+        Cart cart = new Cart();
+        for (int i = 0; i < lines; i++) {
+            cart.add(products[i % products.length], 1 + (i % 3));
+        }
+        return cart;
+    }
+
+    static void writeCsv(Product[] products, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("id,name,price");
+            for (Product product : products) {
+                writer.println(product.getId() + "," + product.getName() + "," + product.getPrice());
+            }
+        }
+    }
+
+    static File tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import model.Cart;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cart operations behind POSController.addProductToCart / removeFromCart.
+// The controller itself needs a MainFrame, so the model calls it makes are
+// measured directly.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CartBenchmark {
+    @Param({ "5", "200" })
+    public int lines;
+
+    private Product[] products;
+    private Cart cart;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        products = BenchmarkData.products(lines);
+        cart = BenchmarkData.cart(products, lines);
+    }
+
+    @Benchmark
+    public int addProductToCart() {
+        Product product = products[next++ % lines];
+        return cart.add(product);
+    }
+
+    @Benchmark
+    public int addThenRemove() {
+        Product product = products[next++ % lines];
+        cart.add(product);
+        return cart.decrement(product.getId());
+    }
+
+    @Benchmark
+    public Cart snapshot() {
+        return cart.snapshot();
+    }
+
+    @Benchmark
+    public double totalAmount() {
+        return cart.getTotalAmount();
+    }
+}
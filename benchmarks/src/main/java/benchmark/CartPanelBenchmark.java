@@ -0,0 +1,50 @@
+package benchmark;
+
+import model.Cart;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+import view.CartPanel;
+
+import java.util.concurrent.TimeUnit;
+
+// CartPanel total and table refresh, run headless (no window is ever shown)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CartPanelBenchmark {
+    @Param({ "5", "200" })
+    public int lines;
+
+    private CartPanel cartPanel;
+    private Cart cart;
+    private Product lastProduct;
+
+    @Setup
+    public void setUp() {
+        Product[] products = BenchmarkData.products(lines);
+        cart = BenchmarkData.cart(products, lines);
+        lastProduct = products[lines - 1];
+        cartPanel = new CartPanel(null);
+        cartPanel.updateCartTable(cart);
+    }
+
+    @Benchmark
+    public double getTotalAmount() {
+        return cartPanel.getTotalAmount();
+    }
+
+    @Benchmark
+    public void updateCartTable() {
+        cartPanel.updateCartTable(cart);
+    }
+
+    // One more unit of a line: a single row update event
+    @Benchmark
+    public void incrementOneLine() {
+        cart.add(lastProduct);
+        cartPanel.updateCartTable(cart);
+    }
+}
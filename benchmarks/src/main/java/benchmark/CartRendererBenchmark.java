@@ -0,0 +1,86 @@
+package benchmark;
+
+import model.Cart;
+import org.openjdk.jmh.annotations.*;
+import view.CartPanel;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+// Renders every cell of the cart table once, as a full repaint does.
+// Run with -prof gc and compare gc.alloc.rate.norm: cartCellRenderer should be
+// close to zero bytes/op, while allocatingRenderer (the old per-cell style)
+// grows with rows x columns.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CartRendererBenchmark {
+    private static final int TEXT_COLUMNS = 4; // The delete button column is a separate component
+
+    @Param({ "20", "200" })
+    public int lines;
+
+    private JTable table;
+    private TableCellRenderer allocatingRenderer;
+
+    @Setup
+    public void setUp() {
+        Cart cart = BenchmarkData.cart(BenchmarkData.products(lines), lines);
+        CartPanel cartPanel = new CartPanel(null);
+        cartPanel.updateCartTable(cart);
+        table = cartPanel.getCartTable();
+        allocatingRenderer = new AllocatingRenderer();
+    }
+
+    @Benchmark
+    public Component cartCellRenderer() {
+        Component last = null;
+        for (int row = 0; row < table.getRowCount(); row++) {
+            for (int column = 0; column < TEXT_COLUMNS; column++) {
+                last = table.prepareRenderer(table.getCellRenderer(row, column), row, column);
+            }
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Component allocatingRenderer() {
+        Component last = null;
+        for (int row = 0; row < table.getRowCount(); row++) {
+            for (int column = 0; column < TEXT_COLUMNS; column++) {
+                last = table.prepareRenderer(allocatingRenderer, row, column);
+            }
+        }
+        return last;
+    }
+
+    // The renderer CartPanel used before: new Font, Color and border per cell
+    private static class AllocatingRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (!isSelected) {
+                c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(248, 251, 255));
+            } else {
+                c.setBackground(new Color(52, 152, 219, 80));
+                c.setForeground(new Color(25, 25, 112));
+            }
+            if (column == 1 || column == 3) {
+                ((JLabel) c).setHorizontalAlignment(JLabel.CENTER);
+                c.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 13));
+            } else if (column == 0) {
+                c.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 13));
+                c.setForeground(new Color(44, 62, 80));
+            }
+            ((JLabel) c).setBorder(BorderFactory.createEmptyBorder(8, 12, 8, 12));
+            return c;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import model.CSVManager;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// CSVManager.getAllProducts on large catalogs: cached snapshot, cold CSV parse
+// and cold binary catalog load
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CatalogBenchmark {
+    @Param({ "1000", "20000" })
+    public int products;
+
+    private File dir;
+    private CSVManager csvOnly;
+    private CSVManager withBinary;
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = BenchmarkData.tempDir("pos-catalog");
+        Product[] catalog = BenchmarkData.products(products);
+
+        File csvFile = new File(dir, "products.csv");
+        BenchmarkData.writeCsv(catalog, csvFile);
+        csvOnly = new CSVManager(csvFile.getPath());
+
+        File binaryDir = new File(dir, "binary");
+        binaryDir.mkdirs();
+        File binaryCsv = new File(binaryDir, "products.csv");
+        BenchmarkData.writeCsv(catalog, binaryCsv);
+        withBinary = new CSVManager(binaryCsv.getPath());
+        withBinary.exportBinaryCatalog();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public List<Product> cached() {
+        return csvOnly.getAllProducts();
+    }
+
+    @Benchmark
+    public List<Product> coldCsv() {
+        csvOnly.invalidateCache();
+        return csvOnly.getAllProducts();
+    }
+
+    @Benchmark
+    public List<Product> coldBinary() {
+        withBinary.invalidateCache();
+        return withBinary.getAllProducts();
+    }
+}
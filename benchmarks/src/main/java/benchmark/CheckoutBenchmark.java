@@ -0,0 +1,63 @@
+package benchmark;
+
+import controller.CheckoutService;
+import model.Product;
+import org.openjdk.jmh.annotations.*;
+import util.ReceiptNumberGenerator;
+import util.SalesTracker;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+// Complete headless checkouts (three items, payment, sale recorded) from four
+// tills at once. The tills share one sales tracker and receipt number
+// generator, as they would on a multi-till server; sales are persisted into a
+// scratch directory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+@Threads(4)
+public class CheckoutBenchmark {
+    private File dir;
+    private SalesTracker tracker;
+    private ReceiptNumberGenerator receiptNumbers;
+    private Product[] products;
+
+    @State(Scope.Thread)
+    public static class Till {
+        CheckoutService checkout;
+        int next;
+
+        @Setup
+        public void setUp(CheckoutBenchmark shared) {
+            checkout = new CheckoutService(shared.tracker, shared.receiptNumbers, null);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        dir = BenchmarkData.tempDir("pos-checkout");
+        tracker = new SalesTracker(new File(dir, "sales").getPath());
+        receiptNumbers = new ReceiptNumberGenerator(new File(dir, "receipt_numbers.properties"), "01", 10000);
+        products = BenchmarkData.products(40);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracker.close();
+        receiptNumbers.close();
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public Object checkout(Till till) {
+        int first = till.next++ % products.length;
+        till.checkout.addProduct(products[first]);
+        till.checkout.addProduct(products[(first + 7) % products.length], 2);
+        till.checkout.addProduct(products[(first + 13) % products.length]);
+        return till.checkout.checkout(till.checkout.getTotal() + 20);
+    }
+}
@@ -0,0 +1,29 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of timing one operation: nanoTime plus record. Run with -prof gc to
+// check that recording allocates nothing (gc.alloc.rate.norm ~ 0 B/op).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram("benchmark");
+
+    @Benchmark
+    public void recordSince() {
+        histogram.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordSinceContended() {
+        histogram.recordSince(System.nanoTime());
+    }
+}
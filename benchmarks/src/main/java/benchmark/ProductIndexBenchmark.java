@@ -0,0 +1,47 @@
+package benchmark;
+
+import model.Product;
+import model.ProductIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Building the product name index and filtering it while the user types
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ProductIndexBenchmark {
+    private static final String[] KEYSTROKES = { "c", "ca", "cap", "capp", "cappu" };
+
+    @Param({ "1000", "20000" })
+    public int productCount;
+
+    private Product[] products;
+    private ProductIndex index;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkData.products(productCount);
+        index = new ProductIndex(Arrays.asList(products));
+    }
+
+    @Benchmark
+    public ProductIndex build() {
+        return new ProductIndex(Arrays.asList(products));
+    }
+
+    // Typing a five-letter query from an empty search field
+    @Benchmark
+    public int typeAhead() {
+        index.filter("");
+        int matches = 0;
+        for (String query : KEYSTROKES) {
+            matches = index.filter(query).length;
+        }
+        return matches;
+    }
+}
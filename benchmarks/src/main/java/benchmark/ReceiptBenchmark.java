@@ -0,0 +1,39 @@
+package benchmark;
+
+import model.Cart;
+import org.openjdk.jmh.annotations.*;
+import util.ReceiptPrinter;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ReceiptBenchmark {
+    @Param({ "3", "50" })
+    public int lines;
+
+    private Cart cart;
+    private double total;
+
+    @Setup
+    public void setUp() {
+        cart = BenchmarkData.cart(BenchmarkData.products(lines), lines);
+        total = cart.getTotalAmount();
+    }
+
+    // What checkout pays: the receipt is only rendered when someone asks for it
+    @Benchmark
+    public ReceiptPrinter createReceipt() {
+        return new ReceiptPrinter(cart, total, total + 20, 20, "POS01-000001");
+    }
+
+    // Preview, print or save: render the compiled template
+    @Benchmark
+    public String generateContent() {
+        return new ReceiptPrinter(cart, total, total + 20, 20, "POS01-000001").getReceiptContent();
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import util.ReceiptNumberGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Receipt numbers from several checkout threads at once. Disk is touched once
+// per reserved block, so the per-number cost is mostly the shared counter.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Threads(4)
+public class ReceiptNumberBenchmark {
+    @Param({ "100", "10000" })
+    public int blockSize;
+
+    private File dir;
+    private ReceiptNumberGenerator generator;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = BenchmarkData.tempDir("receipt-numbers");
+        generator = new ReceiptNumberGenerator(new File(dir, "state.properties"), "01", blockSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        generator.close();
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public String next() {
+        return generator.next();
+    }
+}
@@ -0,0 +1,32 @@
+package benchmark;
+
+import model.Cart;
+import model.Sale;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SaleBenchmark {
+    @Param({ "3", "50" })
+    public int lines;
+
+    private Cart cart;
+    private double total;
+
+    @Setup
+    public void setUp() {
+        cart = BenchmarkData.cart(BenchmarkData.products(lines), lines);
+        total = cart.getTotalAmount();
+    }
+
+    @Benchmark
+    public Sale construct() {
+        return new Sale(cart, total, total + 20, 20);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import model.Cart;
+import model.Sale;
+import org.openjdk.jmh.annotations.*;
+import util.SalesRecorder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Several tills recording into one day's SalesRecorder, and a report taking a
+// consistent snapshot while they do. Run with -t to vary the number of tills.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+@Threads(4)
+public class SalesRecorderBenchmark {
+    private static final AtomicInteger TILLS = new AtomicInteger();
+
+    private SalesRecorder recorder;
+    private Sale[] sales;
+
+    @State(Scope.Thread)
+    public static class Till {
+        final String terminalId = "T" + TILLS.incrementAndGet();
+        int next;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        recorder = new SalesRecorder(LocalDate.now());
+        sales = new Sale[16];
+        for (int i = 0; i < sales.length; i++) {
+            Cart cart = BenchmarkData.cart(BenchmarkData.products(40), 1 + i % 5).snapshot();
+            sales[i] = new Sale(cart, cart.getTotalAmount(), cart.getTotalAmount(), 0);
+        }
+    }
+
+    @Benchmark
+    public void record(Till till) {
+        recorder.record(till.terminalId, sales[till.next++ & (sales.length - 1)]);
+    }
+
+    // Three tills recording, one report reading totals
+    @Benchmark
+    @Group("withReports")
+    @GroupThreads(3)
+    public void recordWhileReporting(Till till) {
+        record(till);
+    }
+
+    @Benchmark
+    @Group("withReports")
+    @GroupThreads(1)
+    public Object report() {
+        return recorder.snapshotAggregates();
+    }
+}
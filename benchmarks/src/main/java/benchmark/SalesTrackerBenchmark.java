@@ -0,0 +1,60 @@
+package benchmark;
+
+import model.Cart;
+import org.openjdk.jmh.annotations.*;
+import util.SalesTracker;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+// Recording a sale and producing the daily summary on a day that already
+// holds 1k / 100k / 1M sales. Sales are persisted into a scratch directory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx4g" })
+public class SalesTrackerBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int existingSales;
+
+    private File salesDir;
+    private SalesTracker tracker;
+    private Cart[] carts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        salesDir = BenchmarkData.tempDir("pos-sales");
+        tracker = new SalesTracker(salesDir.getPath());
+
+        carts = new Cart[16];
+        for (int i = 0; i < carts.length; i++) {
+            carts[i] = BenchmarkData.cart(BenchmarkData.products(40), 1 + i % 5).snapshot();
+        }
+        for (int i = 0; i < existingSales; i++) {
+            recordSale();
+        }
+        tracker.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracker.close();
+        BenchmarkData.delete(salesDir);
+    }
+
+    @Benchmark
+    public void recordSale() {
+        Cart cart = carts[next++ & (carts.length - 1)];
+        double total = cart.getTotalAmount();
+        tracker.recordSale(cart, total, total, 0);
+    }
+
+    @Benchmark
+    public void recordSaleAndSummary() {
+        recordSale();
+        tracker.generateDailySummary();
+    }
+}
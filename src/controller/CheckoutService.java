@@ -0,0 +1,151 @@
+package controller;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import util.LatencyHistogram;
+import util.PrintSpooler;
+import util.ReceiptNumberGenerator;
+import util.ReceiptPrinter;
+import util.SalesTracker;
+
+// Checkout for one till without any Swing: cart operations, pricing, payment
+// and sale recording. POSController adapts it to the UI; tests and benchmarks
+// drive it directly.
+//
+// All methods are thread-safe. Cart methods return an immutable snapshot of
+// the cart after the change, which callers can render without locking.
+// checkout() does its slow work (receipt number, sale recording) without the
+// lock; meanwhile the cart can be read but not changed.
+// Failures are reported as exceptions (IllegalStateException for an empty cart,
+// IllegalArgumentException for bad input) for the caller to show.
+// Several services can share one SalesTracker, ReceiptNumberGenerator and
+// PrintSpooler, e.g. one service per till on a server.
+public class CheckoutService {
+    private static final LatencyHistogram CHECKOUT_LATENCY = LatencyHistogram.named("checkout");
+
+    private final SalesTracker salesTracker;
+    private final ReceiptNumberGenerator receiptNumbers;
+    private final PrintSpooler printSpooler;
+
+    // Guarded by this
+    private final Cart cart = new Cart();
+    private ReceiptPrinter lastReceipt;
+    private boolean checkingOut; // The cart is being sold; changes would not be in the sale
+
+    // printSpooler may be null when receipts are never printed
+    public CheckoutService(SalesTracker salesTracker, ReceiptNumberGenerator receiptNumbers,
+            PrintSpooler printSpooler) {
+        this.salesTracker = salesTracker;
+        this.receiptNumbers = receiptNumbers;
+        this.printSpooler = printSpooler;
+    }
+
+    public synchronized Cart addProduct(Product product) {
+        return addProduct(product, 1);
+    }
+
+    // Cart.add rejects a quantity below 1
+    public synchronized Cart addProduct(Product product, int quantity) {
+        checkNotCheckingOut();
+        cart.add(product, quantity);
+        return cart.snapshot();
+    }
+
+    // Takes one unit of the product off the cart, removing the line at zero
+    public synchronized Cart removeOne(String productName) {
+        checkNotCheckingOut();
+        int index = cart.indexOfName(productName);
+        if (index < 0) {
+            throw new IllegalArgumentException("Product '" + productName + "' not found in cart!");
+        }
+        cart.decrement(cart.getProductId(index));
+        return cart.snapshot();
+    }
+
+    public synchronized Cart clearCart() {
+        checkNotCheckingOut();
+        cart.clear();
+        return cart.snapshot();
+    }
+
+    public synchronized Cart getCart() {
+        return cart.snapshot();
+    }
+
+    public synchronized boolean isCartEmpty() {
+        return cart.isEmpty();
+    }
+
+    public synchronized long getTotalSatang() {
+        return cart.getTotalSatang();
+    }
+
+    public synchronized double getTotal() {
+        return cart.getTotalAmount();
+    }
+
+    // Takes payment for the cart, records the sale and empties the cart.
+    // receivedAmount 0 means the amount tendered was not entered (no change).
+    // If the sale cannot be recorded the exception is passed on, the cart is
+    // left as it was and no receipt is issued.
+    public ReceiptPrinter checkout(double receivedAmount) {
+        long start = System.nanoTime();
+        Cart soldCart;
+        double totalAmount;
+        double changeAmount;
+        synchronized (this) {
+            checkNotCheckingOut();
+            if (cart.isEmpty()) {
+                throw new IllegalStateException("Cart is empty!");
+            }
+            long totalSatang = cart.getTotalSatang();
+            long receivedSatang = Math.round(receivedAmount * 100);
+            if (receivedSatang < 0 || (receivedSatang > 0 && receivedSatang < totalSatang)) {
+                throw new IllegalArgumentException(String.format(
+                        "Insufficient payment amount. Required: ฿%.2f, Received: ฿%.2f",
+                        totalSatang / 100.0, receivedAmount));
+            }
+
+            totalAmount = totalSatang / 100.0;
+            changeAmount = receivedSatang > 0 ? (receivedSatang - totalSatang) / 100.0 : 0;
+            soldCart = cart.snapshot(); // Immutable, shared by receipt and sale record
+            checkingOut = true;
+        }
+
+        // Without the lock: the number may wait for its block to be saved and the
+        // sale for room in the writer's queue
+        ReceiptPrinter receipt = null;
+        try {
+            String receiptNumber = receiptNumbers.next();
+            Sale sale = salesTracker.recordSale(soldCart, totalAmount, receivedAmount, changeAmount,
+                    receiptNumber, receiptNumbers.getTerminalId());
+            receipt = new ReceiptPrinter(sale, printSpooler); // Same time as the journaled sale
+        } finally {
+            synchronized (this) {
+                checkingOut = false;
+                if (receipt != null) {
+                    cart.clear();
+                    lastReceipt = receipt;
+                }
+            }
+        }
+        CHECKOUT_LATENCY.recordSince(start);
+        return receipt;
+    }
+
+    // Receipt of the last completed sale, or null
+    public synchronized ReceiptPrinter getLastReceipt() {
+        return lastReceipt;
+    }
+
+    private void checkNotCheckingOut() {
+        if (checkingOut) {
+            throw new IllegalStateException("Checkout in progress");
+        }
+    }
+
+    public SalesTracker getSalesTracker() {
+        return salesTracker;
+    }
+}
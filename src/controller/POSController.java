@@ -1,90 +1,174 @@
 package controller;
 
-import model.CartItem;
+import model.Cart;
 import model.CSVManager;
 import model.Product;
+import util.EdtWatchdog;
+import util.FilePrintDevice;
+import util.IconPrerenderer;
+import util.Instrumentation;
+import util.LatencyHistogram;
+import util.MetricsServer;
+import util.PrintDevice;
+import util.PrintSpooler;
+import util.ReceiptNumberGenerator;
 import util.ReceiptPrinter;
 import util.SalesTracker;
+import util.SystemPrintDevice;
 import view.MainFrame;
 import view.PaymentDialog;
 import view.SalesSummaryDialog;
 import javax.swing.JOptionPane;
-import java.util.HashMap;
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+// Swing adapter over CheckoutService: forwards UI actions, shows the results
+// and turns checkout errors into dialogs
 public class POSController {
+    // Timed through the cart view refresh, i.e. what the cashier waits for
+    private static final LatencyHistogram ADD_LATENCY = LatencyHistogram.named("cart.add");
+    private static final LatencyHistogram REMOVE_LATENCY = LatencyHistogram.named("cart.remove");
+    private static final LatencyHistogram SALE_LATENCY = LatencyHistogram.named("sale.complete");
+    private static final LongAdder REMOVE_NOT_FOUND = Instrumentation.counter("cart.remove.notFound");
+
     private MainFrame mainFrame;
     private CSVManager csvManager;
-    private HashMap<Integer, CartItem> currentCart;
-    private ReceiptPrinter lastReceiptPrinter;
+    private CheckoutService checkout;
     private double lastReceivedAmount;
     private SalesTracker salesTracker;
+    private IconPrerenderer iconPrerenderer;
+    private PrintSpooler printSpooler;
+    private ReceiptNumberGenerator receiptNumbers;
 
     public POSController(MainFrame mainFrame) {
         this.mainFrame = mainFrame;
         this.csvManager = new CSVManager();
-        this.currentCart = new HashMap<>();
         this.salesTracker = new SalesTracker();
+        List<Product> products = csvManager.getAllProducts();
+        this.salesTracker.setProductCatalog(products);
+
+        // Render product icons on worker threads while the window is being built
+        this.iconPrerenderer = new IconPrerenderer();
+        this.iconPrerenderer.prerender(products);
+
+        // Receipts print on the spooler thread; jobs left from the last run print first
+        this.printSpooler = new PrintSpooler(createPrintDevice());
+        // -Dpos.terminal=02 names the till in its receipt numbers; without it each
+        // till keeps the random id it picked on its first start
+        this.receiptNumbers = new ReceiptNumberGenerator(System.getProperty("pos.terminal"));
+        this.checkout = new CheckoutService(salesTracker, receiptNumbers, printSpooler);
+
+        // Drain queued sales to disk when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(salesTracker::close, "sales-tracker-shutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(printSpooler::shutdown, "print-spooler-shutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(receiptNumbers::close, "receipt-numbers-shutdown"));
+        Runtime.getRuntime().addShutdownHook(new Thread(iconPrerenderer::shutdown, "icon-prerender-shutdown"));
+
+        startMetricsServer();
+        startEdtWatchdog();
+
+        // After the window is up, so the cashier sees it before the first sale
+        SwingUtilities.invokeLater(this::warnIfSalesCannotBeSaved);
     }
 
-    public List<Product> getProducts() {
-        return csvManager.getAllProducts();
+    private void warnIfSalesCannotBeSaved() {
+        IOException failure = salesTracker.getPersistenceFailure();
+        if (failure != null) {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Sales cannot be saved: " + failure.getMessage()
+                            + "\nSales are blocked until the problem is fixed and the program is restarted.",
+                    "Sales Not Saved",
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
 
-    public void addProductToCart(Product product) {
-        if (currentCart.containsKey(product.getId())) {
-            currentCart.get(product.getId()).incrementQuantity();
-        } else {
-            currentCart.put(product.getId(), new CartItem(product));
+    // Reports event handlers that freeze the window for longer than
+    // -Dpos.edt.stallMillis (default 250, 0 turns the watchdog off)
+    private void startEdtWatchdog() {
+        String stallMillis = System.getProperty("pos.edt.stallMillis",
+                Long.toString(EdtWatchdog.DEFAULT_STALL_THRESHOLD_MILLIS));
+        try {
+            long threshold = Long.parseLong(stallMillis);
+            if (threshold <= 0) {
+                return;
+            }
+            File logFile = new File(new File(salesTracker.getDailySalesFilePath()).getParentFile(), "edt_stalls.log");
+            EdtWatchdog watchdog = new EdtWatchdog(threshold, logFile);
+            watchdog.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(watchdog::stop, "edt-watchdog-shutdown"));
+        } catch (NumberFormatException e) {
+            System.err.println("Error starting EDT watchdog: " + e.getMessage());
         }
-        mainFrame.updateCartView(currentCart);
     }
 
-    public void removeFromCart(String productName) {
-        System.out.println("[DEBUG] Attempting to remove product: " + productName);
-        System.out.println("[DEBUG] Current cart size: " + currentCart.size());
-
-        // Find the product by name and remove it from cart
-        Integer productIdToRemove = null;
-        for (Map.Entry<Integer, CartItem> entry : currentCart.entrySet()) {
-            if (entry.getValue().getProduct().getName().equals(productName)) {
-                productIdToRemove = entry.getKey();
-                System.out.println("[DEBUG] Found product with ID: " + productIdToRemove);
-                break;
-            }
+    // -Dpos.metrics.port=9464 serves today's figures on http://localhost:9464/metrics
+    private void startMetricsServer() {
+        String port = System.getProperty("pos.metrics.port");
+        if (port == null || port.isEmpty()) {
+            return;
+        }
+        try {
+            MetricsServer metricsServer = new MetricsServer(salesTracker, Integer.parseInt(port));
+            metricsServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(metricsServer::stop, "metrics-http-shutdown"));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error starting metrics server on port " + port + ": " + e.getMessage());
         }
+    }
 
-        if (productIdToRemove != null) {
-            CartItem item = currentCart.get(productIdToRemove);
-            System.out.println("[DEBUG] Current quantity: " + item.getQuantity());
-
-            if (item.getQuantity() > 1) {
-                // If quantity > 1, just decrease quantity
-                item.decrementQuantity();
-                System.out.println("[DEBUG] Decremented quantity to: " + item.getQuantity());
-            } else {
-                // If quantity = 1, remove the item completely
-                currentCart.remove(productIdToRemove);
-                System.out.println("[DEBUG] Removed item completely from cart");
-            }
+    // -Dpos.printer.file=receipts.txt prints to a text file instead of the default printer
+    private static PrintDevice createPrintDevice() {
+        String printerFile = System.getProperty("pos.printer.file");
+        if (printerFile != null && !printerFile.isEmpty()) {
+            return new FilePrintDevice(new File(printerFile));
+        }
+        return new SystemPrintDevice();
+    }
 
-            // Update the cart view
-            System.out.println("[DEBUG] Updating cart view...");
-            mainFrame.updateCartView(currentCart);
-            System.out.println("[DEBUG] Cart updated successfully");
-        } else {
-            System.err.println("[ERROR] Product not found in cart: " + productName);
+    public List<Product> getProducts() {
+        return csvManager.getAllProducts();
+    }
+
+    public IconPrerenderer getIconPrerenderer() {
+        return iconPrerenderer;
+    }
+
+    public PrintSpooler getPrintSpooler() {
+        return printSpooler;
+    }
+
+    public CheckoutService getCheckoutService() {
+        return checkout;
+    }
+
+    public void addProductToCart(Product product) {
+        long start = System.nanoTime();
+        mainFrame.updateCartView(checkout.addProduct(product));
+        ADD_LATENCY.recordSince(start);
+    }
+
+    public void removeFromCart(String productName) {
+        long start = System.nanoTime();
+        try {
+            // If quantity > 1 this just decreases the quantity,
+            // if quantity = 1 the item is removed completely
+            mainFrame.updateCartView(checkout.removeOne(productName));
+            REMOVE_LATENCY.recordSince(start);
+        } catch (IllegalArgumentException e) {
+            REMOVE_NOT_FOUND.increment();
             // Show error dialog
             JOptionPane.showMessageDialog(mainFrame,
-                    "Product '" + productName + "' not found in cart!",
+                    e.getMessage(),
                     "Remove Error",
                     JOptionPane.ERROR_MESSAGE);
         }
     }
 
     public void showPaymentDialog() {
-        double total = mainFrame.getCartPanel().getTotalAmount();
+        double total = getCartTotal();
         if (total > 0) {
             PaymentDialog dialog = new PaymentDialog(mainFrame, this, total);
             dialog.setVisible(true);
@@ -101,36 +185,15 @@ public class POSController {
     }
 
     public void completeSale(double receivedAmount) {
-        if (currentCart.isEmpty()) {
-            JOptionPane.showMessageDialog(mainFrame,
-                    "Cannot complete sale: Cart is empty!",
-                    "Sale Error",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
         // Store received amount for receipt
         this.lastReceivedAmount = receivedAmount;
 
         try {
-            // Create receipt printer for later use
-            double totalAmount = mainFrame.getCartPanel().getTotalAmount();
-            double changeAmount = receivedAmount > 0 ? receivedAmount - totalAmount : 0;
-            lastReceiptPrinter = new ReceiptPrinter(
-                    new HashMap<>(currentCart), // Create copy for receipt
-                    totalAmount,
-                    receivedAmount,
-                    changeAmount);
-
-            // Record the sale in sales tracker
-            salesTracker.recordSale(new HashMap<>(currentCart), totalAmount, receivedAmount, changeAmount);
-
-            // Generate daily summary after each sale
-            salesTracker.generateDailySummary();
-
-            // Clear the cart
-            currentCart.clear();
-            mainFrame.getCartPanel().clearCart();
+            // Records the sale and empties the cart; the receipt is kept for printing
+            long start = System.nanoTime();
+            checkout.checkout(receivedAmount);
+            mainFrame.updateCartView(checkout.getCart());
+            SALE_LATENCY.recordSince(start);
 
             // Show success message
             JOptionPane.showMessageDialog(mainFrame,
@@ -138,6 +201,11 @@ public class POSController {
                     "Sale Complete",
                     JOptionPane.INFORMATION_MESSAGE);
 
+        } catch (IllegalStateException e) {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Cannot complete sale: " + e.getMessage(),
+                    "Sale Error",
+                    JOptionPane.ERROR_MESSAGE);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(mainFrame,
                     "Error completing sale: " + e.getMessage(),
@@ -147,6 +215,7 @@ public class POSController {
     }
 
     public void printReceipt() {
+        ReceiptPrinter lastReceiptPrinter = checkout.getLastReceipt();
         if (lastReceiptPrinter != null) {
             lastReceiptPrinter.showReceiptPreview(mainFrame);
         } else {
@@ -161,12 +230,21 @@ public class POSController {
         this.lastReceivedAmount = receivedAmount;
     }
 
-    public HashMap<Integer, CartItem> getCurrentCart() {
-        return new HashMap<>(currentCart); // Return copy to prevent external modification
+    public Cart getCurrentCart() {
+        return checkout.getCart(); // Read-only snapshot to prevent external modification
+    }
+
+    // Exact running total of the current cart, kept by the cart model
+    public double getCartTotal() {
+        return checkout.getTotal();
+    }
+
+    public long getCartTotalSatang() {
+        return checkout.getTotalSatang();
     }
 
     public boolean hasItemsInCart() {
-        return !currentCart.isEmpty();
+        return !checkout.isCartEmpty();
     }
 
     public SalesTracker getSalesTracker() {
@@ -175,29 +253,41 @@ public class POSController {
 
     public void showDailySalesSummary() {
         try {
-            // Generate daily summary to ensure latest data
-            salesTracker.generateDailySummary();
+            // The summary file is rewritten on the summary thread; the dialog,
+            // which reads it, opens once it is up to date
+            salesTracker.requestDailySummary().whenComplete((done, error) ->
+                    SwingUtilities.invokeLater(() -> openSalesSummaryDialog(error)));
+        } catch (Exception e) {
+            showSummaryError(e);
+        }
+    }
 
-            // Show the comprehensive sales summary dialog
-            SalesSummaryDialog dialog = new SalesSummaryDialog(mainFrame);
+    private void openSalesSummaryDialog(Throwable error) {
+        if (error != null) {
+            showSummaryError(error.getCause() != null ? error.getCause() : error); // Unwrap CompletionException
+            return;
+        }
+        try {
+            SalesSummaryDialog dialog = new SalesSummaryDialog(mainFrame, salesTracker);
             dialog.setVisible(true);
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(mainFrame,
-                    "เกิดข้อผิดพลาดในการสร้างรายงาน: " + e.getMessage(),
-                    "Error",
-                    JOptionPane.ERROR_MESSAGE);
+            showSummaryError(e);
         }
     }
 
+    private void showSummaryError(Throwable e) {
+        JOptionPane.showMessageDialog(mainFrame,
+                "เกิดข้อผิดพลาดในการสร้างรายงาน: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+    }
+
     public void showQuickSalesSummary() {
         try {
-            // Generate daily summary to ensure latest data
-            salesTracker.generateDailySummary();
-
-            // Get today's sales data
-            java.util.List<model.Sale> todaysSales = salesTracker.getTodaysSales();
+            // Get today's running totals
+            util.SalesAggregates todaysAggregates = salesTracker.getTodaysAggregates();
 
-            if (todaysSales.isEmpty()) {
+            if (todaysAggregates.getTransactionCount() == 0) {
                 JOptionPane.showMessageDialog(mainFrame,
                         "<html><div style='text-align: center; font-family: sans-serif; padding: 20px;'>" +
                                 "<h2 style='color: #3498db;'>📊 สรุปยอดขายวันนี้</h2>" +
@@ -209,22 +299,10 @@ public class POSController {
                 return;
             }
 
-            // Calculate total revenue
-            double totalRevenue = 0.0;
-            java.util.Map<String, Integer> itemSummary = new java.util.HashMap<>();
-
-            for (model.Sale sale : todaysSales) {
-                totalRevenue += sale.getTotalAmount();
-                for (java.util.Map.Entry<String, Integer> entry : sale.getItems().entrySet()) {
-                    itemSummary.merge(entry.getKey(), entry.getValue(), Integer::sum);
-                }
-            }
+            double totalRevenue = todaysAggregates.getTotalRevenue();
 
-            // Get top 3 best-selling items
-            java.util.List<java.util.Map.Entry<String, Integer>> topItems = itemSummary.entrySet().stream()
-                    .sorted(java.util.Map.Entry.<String, Integer>comparingByValue().reversed())
-                    .limit(3)
-                    .collect(java.util.stream.Collectors.toList());
+            // Get top 3 best-selling items from the maintained ranking
+            java.util.List<java.util.Map.Entry<String, Integer>> topItems = todaysAggregates.getTopSellers(3);
 
             // Build quick summary message
             StringBuilder summary = new StringBuilder();
@@ -239,7 +317,7 @@ public class POSController {
             summary.append(String.format("฿%.2f", totalRevenue));
             summary.append("</p>");
             summary.append("<p style='font-size: 14px; color: #7f8c8d; margin: 0;'>");
-            summary.append(String.format("จากธุรกรรม %d ครั้ง", todaysSales.size()));
+            summary.append(String.format("จากธุรกรรม %d ครั้ง", todaysAggregates.getTransactionCount()));
             summary.append("</p></div>");
 
             // Top 3 best-selling items
@@ -274,6 +352,23 @@ public class POSController {
         }
     }
 
+    // Writes the latency and counter report next to the sales data and logs it
+    public void dumpPerformanceReport() {
+        try {
+            File report = Instrumentation.dumpToFile(new File(salesTracker.getDailySalesFilePath()).getParentFile());
+            Instrumentation.log();
+            JOptionPane.showMessageDialog(mainFrame,
+                    "บันทึกสถิติประสิทธิภาพแล้ว:\n" + report.getPath(),
+                    "Performance Report",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Failed to save performance report: " + e.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     public void showSalesDataLocation() {
         String salesPath = salesTracker.getDailySalesFilePath();
         String summaryPath = salesTracker.getDailySummaryFilePath();
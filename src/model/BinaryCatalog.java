@@ -0,0 +1,190 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary product catalog read through a memory-mapped file.
+//
+// Layout (big-endian):
+//   header   : magic "CPOS", version, product count, string table size (4 x int)
+//   ids      : int[count]
+//   prices   : long[count]   price in satang (1/100 baht)
+//   offsets  : int[count + 1] start of each name in the string table
+//   strings  : UTF-8 bytes of all product names, back to back
+//
+// Ids and prices are fixed width, so they are read straight from the mapping
+// without parsing; names are only decoded when asked for. open() checks the
+// sizes and every name offset, so a truncated or corrupt file fails with an
+// IOException instead of an index error later on.
+public class BinaryCatalog {
+    public static final String FILE_NAME = "products.bin";
+
+    private static final int MAGIC = 0x43504F53; // "CPOS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int idsOffset;
+    private final int pricesOffset;
+    private final int nameOffsetsOffset;
+    private final int stringsOffset;
+
+    private BinaryCatalog(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a product catalog file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported catalog version: " + buffer.getInt(4));
+        }
+        this.count = buffer.getInt(8);
+        int stringTableSize = buffer.getInt(12);
+        if (count < 0 || stringTableSize < 0) {
+            throw new IOException("Corrupt product catalog file");
+        }
+
+        // Sizes are checked in long arithmetic so a huge count cannot wrap around
+        long expectedSize = HEADER_SIZE + count * 16L + 4 + stringTableSize;
+        if (expectedSize != buffer.capacity()) {
+            throw new IOException("Corrupt product catalog file: expected " + expectedSize
+                    + " bytes, found " + buffer.capacity());
+        }
+
+        this.idsOffset = HEADER_SIZE;
+        this.pricesOffset = idsOffset + count * 4;
+        this.nameOffsetsOffset = pricesOffset + count * 8;
+        this.stringsOffset = nameOffsetsOffset + (count + 1) * 4;
+
+        // Name offsets must start at zero, never go backwards and end at the table size
+        int previous = 0;
+        for (int i = 0; i <= count; i++) {
+            int offset = buffer.getInt(nameOffsetsOffset + i * 4);
+            if ((i == 0 && offset != 0) || offset < previous || offset > stringTableSize
+                    || (i == count && offset != stringTableSize)) {
+                throw new IOException("Corrupt product catalog file: bad name offset at " + i);
+            }
+            previous = offset;
+        }
+    }
+
+    public static BinaryCatalog open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.BIG_ENDIAN);
+            return new BinaryCatalog(mapped);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getId(int index) {
+        return buffer.getInt(idsOffset + index * 4);
+    }
+
+    public long getPriceSatang(int index) {
+        return buffer.getLong(pricesOffset + index * 8);
+    }
+
+    public double getPrice(int index) {
+        return getPriceSatang(index) / 100.0;
+    }
+
+    public String getName(int index) {
+        int start = buffer.getInt(nameOffsetsOffset + index * 4);
+        int end = buffer.getInt(nameOffsetsOffset + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        // Read through a duplicate so concurrent readers do not share a position
+        ByteBuffer view = buffer.duplicate();
+        view.position(stringsOffset + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public List<Product> toProducts() {
+        // Copy the whole string table once and decode each name from it in bulk
+        byte[] strings = new byte[buffer.capacity() - stringsOffset];
+        ByteBuffer view = buffer.duplicate();
+        view.position(stringsOffset);
+        view.get(strings);
+
+        List<Product> products = new ArrayList<>(count);
+        int start = buffer.getInt(nameOffsetsOffset);
+        for (int i = 0; i < count; i++) {
+            int end = buffer.getInt(nameOffsetsOffset + (i + 1) * 4);
+            String name = new String(strings, start, end - start, StandardCharsets.UTF_8);
+            products.add(new Product(getId(i), name, getPrice(i)));
+            start = end;
+        }
+        return products;
+    }
+
+    public static void write(List<Product> products, File file) throws IOException {
+        int count = products.size();
+        byte[][] names = new byte[count][];
+        int stringTableSize = 0;
+        for (int i = 0; i < count; i++) {
+            names[i] = products.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            stringTableSize += names[i].length;
+        }
+
+        int totalSize = HEADER_SIZE + count * 4 + count * 8 + (count + 1) * 4 + stringTableSize;
+        ByteBuffer out = ByteBuffer.allocate(totalSize).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(stringTableSize);
+
+        for (Product product : products) {
+            out.putInt(product.getId());
+        }
+        for (Product product : products) {
+            out.putLong(product.getPriceSatang());
+        }
+        int offset = 0;
+        for (byte[] name : names) {
+            out.putInt(offset);
+            offset += name.length;
+        }
+        out.putInt(offset);
+        for (byte[] name : names) {
+            out.put(name);
+        }
+        out.flip();
+
+        // Write to a temp file first so a reader never maps a half-written catalog
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+                FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot replace " + file);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+
+    // Converter: java model.BinaryCatalog [products.csv] [products.bin]
+    public static void main(String[] args) throws IOException {
+        String csvFile = args.length > 0 ? args[0] : "products.csv";
+        String binFile = args.length > 1 ? args[1] : FILE_NAME;
+
+        new CSVManager(csvFile).exportBinaryCatalog(new File(binFile));
+        System.out.println("Wrote " + open(new File(binFile)).size() + " products to " + binFile);
+    }
+}
@@ -2,13 +2,30 @@ package model;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class CSVManager {
     private static final String FILE_NAME = "products.csv";
 
+    private final String fileName;
+    private final String binaryFileName;
+
+    // Parsed catalog snapshot, reused until the source file changes on disk
+    private List<Product> cachedProducts;
+    private File cachedSource;
+    private long cachedLastModified = -1;
+    private long cachedLength = -1;
+
     public CSVManager() {
-        File file = new File(FILE_NAME);
+        this(FILE_NAME);
+    }
+
+    public CSVManager(String fileName) {
+        this.fileName = fileName;
+        this.binaryFileName = fileName.equals(FILE_NAME) ? BinaryCatalog.FILE_NAME
+                : fileName.replaceFirst("\\.csv$", "") + ".bin";
+        File file = new File(fileName);
         if (!file.exists()) {
             try (FileWriter fw = new FileWriter(file)) {
                 fw.write("id,name,price\n");
@@ -31,9 +48,74 @@ public class CSVManager {
         }
     }
 
-    public List<Product> getAllProducts() {
+    // Returns an immutable snapshot of the catalog. The file is only re-parsed
+    // when its modification time or size differs from the cached snapshot.
+    // A binary catalog next to the CSV is preferred while it is up to date;
+    // once the CSV is edited the binary catalog is rewritten from it.
+    public synchronized List<Product> getAllProducts() {
+        File csvFile = new File(fileName);
+        File binaryFile = new File(binaryFileName);
+        if (binaryFile.exists() && binaryFile.lastModified() < csvFile.lastModified()) {
+            regenerateBinaryCatalog(binaryFile);
+        }
+        boolean useBinary = binaryFile.exists() && binaryFile.lastModified() >= csvFile.lastModified();
+        File source = useBinary ? binaryFile : csvFile;
+        long lastModified = source.lastModified();
+        long length = source.length();
+
+        if (cachedProducts == null || !source.equals(cachedSource)
+                || lastModified != cachedLastModified || length != cachedLength) {
+            List<Product> products = useBinary ? readBinaryProducts(binaryFile) : null;
+            if (products == null) {
+                products = readProducts();
+            }
+            cachedProducts = Collections.unmodifiableList(products);
+            cachedSource = source;
+            cachedLastModified = lastModified;
+            cachedLength = length;
+        }
+        return cachedProducts;
+    }
+
+    private void regenerateBinaryCatalog(File binaryFile) {
+        try {
+            BinaryCatalog.write(readProducts(), binaryFile);
+        } catch (IOException e) {
+            // The CSV is still read directly while the binary catalog is stale
+            System.err.println("Error regenerating binary catalog: " + e.getMessage());
+        }
+    }
+
+    // Converts products.csv into the binary catalog used for fast startup
+    public void exportBinaryCatalog() throws IOException {
+        exportBinaryCatalog(new File(binaryFileName));
+    }
+
+    public synchronized void exportBinaryCatalog(File target) throws IOException {
+        BinaryCatalog.write(readProducts(), target);
+        invalidateCache();
+    }
+
+    // Drops the cached snapshot so the next call re-reads the file
+    public synchronized void invalidateCache() {
+        cachedProducts = null;
+        cachedSource = null;
+        cachedLastModified = -1;
+        cachedLength = -1;
+    }
+
+    private List<Product> readBinaryProducts(File binaryFile) {
+        try {
+            return BinaryCatalog.open(binaryFile).toProducts();
+        } catch (IOException e) {
+            System.err.println("Error reading binary catalog, falling back to CSV: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Product> readProducts() {
         List<Product> products = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE_NAME))) {
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
             String line;
             br.readLine();
             while ((line = br.readLine()) != null) {
@@ -55,4 +137,4 @@ public class CSVManager {
         return products;
     }
 
-}
\ No newline at end of file
+}
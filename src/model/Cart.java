@@ -0,0 +1,232 @@
+package model;
+
+import java.util.Arrays;
+
+// Shopping cart keyed by primitive product ids.
+//
+// Lines are kept in insertion order in parallel arrays, so adding, totalling
+// and iterating a cart allocates nothing. The total is a running sum in satang
+// (1/100 baht), so it is exact and O(1) to read. snapshot() returns an immutable
+// view that shares the arrays; the live cart only copies them on its next change.
+public class Cart {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] productIds;
+    private Product[] products;
+    private int[] quantities;
+    private int size;
+    private int totalQuantity;
+    private long totalSatang;
+
+    private final boolean frozen; // true for snapshots
+    private boolean shared; // arrays are referenced by a snapshot
+
+    public Cart() {
+        this.productIds = new int[INITIAL_CAPACITY];
+        this.products = new Product[INITIAL_CAPACITY];
+        this.quantities = new int[INITIAL_CAPACITY];
+        this.frozen = false;
+    }
+
+    private Cart(Cart source) {
+        this.productIds = source.productIds;
+        this.products = source.products;
+        this.quantities = source.quantities;
+        this.size = source.size;
+        this.totalQuantity = source.totalQuantity;
+        this.totalSatang = source.totalSatang;
+        this.frozen = true;
+    }
+
+    // Adds one unit of the product and returns the line index it ended up on
+    public int add(Product product) {
+        return add(product, 1);
+    }
+
+    public int add(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        prepareWrite();
+        int index = indexOf(product.getId());
+        if (index < 0) {
+            ensureCapacity(size + 1);
+            index = size++;
+            productIds[index] = product.getId();
+            products[index] = product;
+            quantities[index] = 0;
+        }
+        quantities[index] += quantity;
+        totalQuantity += quantity;
+        totalSatang += products[index].getPriceSatang() * quantity;
+        return index;
+    }
+
+    // Removes one unit of the product; the line disappears when it reaches zero.
+    // Returns the line index that changed, or -1 if the product is not in the cart.
+    public int decrement(int productId) {
+        int index = indexOf(productId);
+        if (index < 0) {
+            return -1;
+        }
+        prepareWrite();
+        if (quantities[index] > 1) {
+            quantities[index]--;
+            totalQuantity--;
+            totalSatang -= products[index].getPriceSatang();
+        } else {
+            removeAt(index);
+        }
+        return index;
+    }
+
+    // Removes the whole line. Returns its former index, or -1 if absent.
+    public int remove(int productId) {
+        int index = indexOf(productId);
+        if (index >= 0) {
+            prepareWrite();
+            removeAt(index);
+        }
+        return index;
+    }
+
+    public void clear() {
+        checkMutable();
+        if (shared) {
+            productIds = new int[INITIAL_CAPACITY];
+            products = new Product[INITIAL_CAPACITY];
+            quantities = new int[INITIAL_CAPACITY];
+            shared = false;
+        } else {
+            Arrays.fill(products, 0, size, null);
+        }
+        size = 0;
+        totalQuantity = 0;
+        totalSatang = 0;
+    }
+
+    // Carts are small, so a linear scan over the int ids beats hashing boxed keys
+    public int indexOf(int productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOfName(String productName) {
+        for (int i = 0; i < size; i++) {
+            if (products[i].getName().equals(productName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getProductId(int index) {
+        checkIndex(index);
+        return productIds[index];
+    }
+
+    public Product getProduct(int index) {
+        checkIndex(index);
+        return products[index];
+    }
+
+    public int getQuantity(int index) {
+        checkIndex(index);
+        return quantities[index];
+    }
+
+    public double getLineTotal(int index) {
+        return getLineTotalSatang(index) / 100.0;
+    }
+
+    public long getLineTotalSatang(int index) {
+        checkIndex(index);
+        return products[index].getPriceSatang() * quantities[index];
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public long getTotalSatang() {
+        return totalSatang;
+    }
+
+    public double getTotalAmount() {
+        return totalSatang / 100.0;
+    }
+
+    // Immutable copy of the current contents. O(1): the arrays are shared
+    // until this cart is modified again.
+    public Cart snapshot() {
+        if (frozen) {
+            return this;
+        }
+        shared = true;
+        return new Cart(this);
+    }
+
+    public boolean isSnapshot() {
+        return frozen;
+    }
+
+    private void removeAt(int index) {
+        totalQuantity -= quantities[index];
+        totalSatang -= products[index].getPriceSatang() * quantities[index];
+        int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(productIds, index + 1, productIds, index, tail);
+            System.arraycopy(products, index + 1, products, index, tail);
+            System.arraycopy(quantities, index + 1, quantities, index, tail);
+        }
+        size--;
+        products[size] = null;
+    }
+
+    private void prepareWrite() {
+        checkMutable();
+        if (shared) {
+            productIds = Arrays.copyOf(productIds, productIds.length);
+            products = Arrays.copyOf(products, products.length);
+            quantities = Arrays.copyOf(quantities, quantities.length);
+            shared = false;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > productIds.length) {
+            int newCapacity = Math.max(capacity, productIds.length * 2);
+            productIds = Arrays.copyOf(productIds, newCapacity);
+            products = Arrays.copyOf(products, newCapacity);
+            quantities = Arrays.copyOf(quantities, newCapacity);
+        }
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Cart snapshot is read-only");
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
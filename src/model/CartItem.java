@@ -1,33 +0,0 @@
-package model;
-
-public class CartItem {
-    private Product product;
-    private int quantity;
-
-    public CartItem(Product product) {
-        this.product = product;
-        this.quantity = 1;
-    }
-
-    public Product getProduct() {
-        return product;
-    }
-
-    public int getQuantity() {
-        return quantity;
-    }
-
-    public void incrementQuantity() {
-        this.quantity++;
-    }
-
-    public void decrementQuantity() {
-        if (this.quantity > 1) {
-            this.quantity--;
-        }
-    }
-
-    public double getTotalPrice() {
-        return product.getPrice() * quantity;
-    }
-}
\ No newline at end of file
@@ -4,11 +4,13 @@ public class Product {
     private int id;
     private String name;
     private double price;
+    private long priceSatang; // Exact price in 1/100 baht, used for totals
 
     public Product(int id, String name, double price) {
         this.id = id;
         this.name = name;
         this.price = price;
+        this.priceSatang = Math.round(price * 100);
 
     }
 
@@ -24,4 +26,8 @@ public class Product {
         return price;
     }
 
+    public long getPriceSatang() {
+        return priceSatang;
+    }
+
 }
\ No newline at end of file
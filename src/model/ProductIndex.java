@@ -0,0 +1,75 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Name index for type-ahead search over the catalog.
+//
+// Names are lower-cased once when the index is built. filter() returns the
+// catalog positions whose name contains the query; when the query only grows
+// (the usual case while typing) it re-checks the previous matches instead of
+// the whole catalog, so each keystroke gets cheaper.
+//
+// Not thread-safe: build and query it on one thread (the EDT for ProductPanel).
+public class ProductIndex {
+    private final Product[] products;
+    private final String[] names;
+    private final int[] allPositions;
+
+    private String lastQuery = "";
+    private int[] lastMatches;
+
+    public ProductIndex(List<Product> products) {
+        int count = products.size();
+        this.products = products.toArray(new Product[count]);
+        this.names = new String[count];
+        this.allPositions = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = normalize(this.products[i].getName());
+            allPositions[i] = i;
+        }
+        this.lastMatches = allPositions;
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public Product get(int position) {
+        return products[position];
+    }
+
+    // Catalog positions of products whose name contains the query, in catalog
+    // order. An empty query matches everything. The returned array is shared;
+    // callers must not modify it.
+    public int[] filter(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            lastQuery = normalized;
+            lastMatches = allPositions;
+            return allPositions;
+        }
+        if (normalized.equals(lastQuery)) {
+            return lastMatches;
+        }
+
+        // A longer query can only match a subset of what a substring of it matched
+        int[] candidates = normalized.contains(lastQuery) ? lastMatches : allPositions;
+        int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int position : candidates) {
+            if (names[position].contains(normalized)) {
+                matches[count++] = position;
+            }
+        }
+
+        lastQuery = normalized;
+        lastMatches = count == matches.length ? matches : Arrays.copyOf(matches, count);
+        return lastMatches;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
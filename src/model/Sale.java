@@ -7,30 +7,53 @@ import java.util.Map;
 
 public class Sale {
     private LocalDateTime saleDateTime;
-    private HashMap<String, Integer> items; // Product name -> quantity
+    private Cart cart; // Immutable snapshot of the sold cart
+    private volatile HashMap<String, Integer> items; // Product name -> quantity; built on first use
     private double totalAmount;
     private double receivedAmount;
     private double changeAmount;
+    private String receiptNumber; // null for sales recorded without a receipt
 
-    public Sale(HashMap<Integer, CartItem> cartItems, double totalAmount, double receivedAmount, double changeAmount) {
-        this.saleDateTime = LocalDateTime.now();
-        this.items = new HashMap<>();
+    public Sale(Cart cart, double totalAmount, double receivedAmount, double changeAmount) {
+        this(LocalDateTime.now(), cart, totalAmount, receivedAmount, changeAmount);
+    }
+
+    // Used when replaying sales recorded earlier
+    public Sale(LocalDateTime saleDateTime, Cart cart, double totalAmount, double receivedAmount,
+            double changeAmount) {
+        this(saleDateTime, cart, totalAmount, receivedAmount, changeAmount, null);
+    }
+
+    public Sale(LocalDateTime saleDateTime, Cart cart, double totalAmount, double receivedAmount,
+            double changeAmount, String receiptNumber) {
+        this.saleDateTime = saleDateTime;
+        this.receiptNumber = receiptNumber;
+        this.cart = cart.snapshot();
         this.totalAmount = totalAmount;
         this.receivedAmount = receivedAmount;
         this.changeAmount = changeAmount;
-
-        // Convert cart items to product name and quantity mapping
-        for (CartItem cartItem : cartItems.values()) {
-            this.items.put(cartItem.getProduct().getName(), cartItem.getQuantity());
-        }
     }
 
     public LocalDateTime getSaleDateTime() {
         return saleDateTime;
     }
 
+    public Cart getCart() {
+        return cart;
+    }
+
     public HashMap<String, Integer> getItems() {
-        return items;
+        HashMap<String, Integer> result = items;
+        if (result == null) {
+            // Convert cart items to product name and quantity mapping. Only listings
+            // need it, so replaying and aggregating sales never hash names here.
+            result = new HashMap<>();
+            for (int i = 0; i < cart.size(); i++) {
+                result.put(cart.getProduct(i).getName(), cart.getQuantity(i));
+            }
+            items = result; // Racing threads build equal maps
+        }
+        return result;
     }
 
     public double getTotalAmount() {
@@ -45,6 +68,11 @@ public class Sale {
         return changeAmount;
     }
 
+    // Number printed on the sale's receipt, or null
+    public String getReceiptNumber() {
+        return receiptNumber;
+    }
+
     public String getFormattedDateTime() {
         return saleDateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
     }
@@ -62,10 +90,11 @@ public class Sale {
         StringBuilder sb = new StringBuilder();
         sb.append("Sale on ").append(getFormattedDateTime()).append("\n");
         sb.append("Items: ");
-        for (Map.Entry<String, Integer> entry : items.entrySet()) {
+        HashMap<String, Integer> quantities = getItems();
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
             sb.append(entry.getKey()).append(" x").append(entry.getValue()).append(", ");
         }
-        if (!items.isEmpty()) {
+        if (!quantities.isEmpty()) {
             sb.setLength(sb.length() - 2);
         }
         sb.append("\nTotal: ฿").append(String.format("%.2f", totalAmount));
@@ -0,0 +1,301 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Column-oriented store of sold line items for analytics.
+//
+// Every line of every sale is one row spread over parallel primitive arrays:
+// local epoch second, sale id, product code, quantity and amount in satang.
+// Product ids are dictionary-encoded into dense codes (0..productCount-1), so
+// group-by queries accumulate into plain arrays instead of hashing names. The
+// dictionary is an open-addressing int map, so encoding does not box either.
+// appendJournal() fills the columns straight from a journal's bytes, without
+// building a Sale (and its name map) per sale; a product's name is decoded
+// only the first time its id is seen.
+// Aggregations are tight loops over the columns that the JIT can unroll and
+// vectorize.
+//
+// Not thread-safe: build it, then query it from one thread or publish it safely.
+public class ColumnarSalesStore {
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int HOURS_PER_DAY = 24;
+
+    private long[] epochSeconds;
+    private int[] saleIds;
+    private int[] productCodes;
+    private int[] quantities;
+    private long[] amounts;
+    private int rowCount;
+    private int saleCount;
+
+    // Open addressing: productIds[slot] maps to codePlusOne[slot] - 1; 0 marks a free slot
+    private int[] productIds = new int[32];
+    private int[] codePlusOne = new int[32];
+    private final List<Product> productsByCode = new ArrayList<>();
+
+    public ColumnarSalesStore() {
+        this(1024);
+    }
+
+    public ColumnarSalesStore(int initialRows) {
+        int capacity = Math.max(16, initialRows);
+        epochSeconds = new long[capacity];
+        saleIds = new int[capacity];
+        productCodes = new int[capacity];
+        quantities = new int[capacity];
+        amounts = new long[capacity];
+    }
+
+    public static ColumnarSalesStore of(List<Sale> sales) {
+        ColumnarSalesStore store = new ColumnarSalesStore(sales.size() * 2);
+        for (Sale sale : sales) {
+            store.append(sale);
+        }
+        return store;
+    }
+
+    // Appends every sale in a day's journal
+    public void appendJournal(File journal) throws IOException {
+        SalesJournal.visitRecords(journal, new SalesJournal.RecordVisitor() {
+            private long saleEpochSecond;
+            private int saleId;
+
+            @Override
+            public void sale(long epochSecond) {
+                saleEpochSecond = epochSecond;
+                saleId = saleCount++;
+            }
+
+            @Override
+            public void line(int productId, long priceSatang, int quantity, byte[] data, int nameOffset,
+                    int nameLength) {
+                int code = getProductCode(productId);
+                if (code < 0) {
+                    code = addProduct(new Product(productId,
+                            new String(data, nameOffset, nameLength, StandardCharsets.UTF_8), priceSatang / 100.0));
+                }
+                ensureCapacity(rowCount + 1);
+                int row = rowCount++;
+                epochSeconds[row] = saleEpochSecond;
+                saleIds[row] = saleId;
+                productCodes[row] = code;
+                quantities[row] = quantity;
+                amounts[row] = priceSatang * quantity;
+            }
+        });
+    }
+
+    // Appends every row of another store, e.g. one loaded for another day
+    public void appendAll(ColumnarSalesStore other) {
+        int[] codes = new int[other.productsByCode.size()];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = codeFor(other.productsByCode.get(code));
+        }
+        ensureCapacity(rowCount + other.rowCount);
+        for (int row = 0; row < other.rowCount; row++) {
+            epochSeconds[rowCount + row] = other.epochSeconds[row];
+            saleIds[rowCount + row] = saleCount + other.saleIds[row];
+            productCodes[rowCount + row] = codes[other.productCodes[row]];
+            quantities[rowCount + row] = other.quantities[row];
+            amounts[rowCount + row] = other.amounts[row];
+        }
+        rowCount += other.rowCount;
+        saleCount += other.saleCount;
+    }
+
+    // Appends every line of the sale and returns the sale id assigned to it
+    public int append(Sale sale) {
+        int saleId = saleCount++;
+        long epochSecond = sale.getSaleDateTime().toEpochSecond(ZoneOffset.UTC);
+        Cart cart = sale.getCart();
+        ensureCapacity(rowCount + cart.size());
+
+        for (int i = 0; i < cart.size(); i++) {
+            Product product = cart.getProduct(i);
+            int row = rowCount++;
+            epochSeconds[row] = epochSecond;
+            saleIds[row] = saleId;
+            productCodes[row] = codeFor(product);
+            quantities[row] = cart.getQuantity(i);
+            amounts[row] = cart.getLineTotalSatang(i);
+        }
+        return saleId;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getSaleCount() {
+        return saleCount;
+    }
+
+    public int getProductCount() {
+        return productsByCode.size();
+    }
+
+    public Product getProduct(int productCode) {
+        return productsByCode.get(productCode);
+    }
+
+    // Dense code of a product id, or -1 if it never sold
+    public int getProductCode(int productId) {
+        int mask = productIds.length - 1;
+        for (int slot = slotOf(productId, mask); codePlusOne[slot] != 0; slot = (slot + 1) & mask) {
+            if (productIds[slot] == productId) {
+                return codePlusOne[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public long totalAmount() {
+        long total = 0;
+        for (int row = 0; row < rowCount; row++) {
+            total += amounts[row];
+        }
+        return total;
+    }
+
+    public long totalQuantity() {
+        long total = 0;
+        for (int row = 0; row < rowCount; row++) {
+            total += quantities[row];
+        }
+        return total;
+    }
+
+    // Revenue in satang per product code
+    public long[] sumAmountByProduct() {
+        long[] sums = new long[productsByCode.size()];
+        for (int row = 0; row < rowCount; row++) {
+            sums[productCodes[row]] += amounts[row];
+        }
+        return sums;
+    }
+
+    // Units sold per product code
+    public long[] sumQuantityByProduct() {
+        long[] sums = new long[productsByCode.size()];
+        for (int row = 0; row < rowCount; row++) {
+            sums[productCodes[row]] += quantities[row];
+        }
+        return sums;
+    }
+
+    // Revenue in satang per hour of day (0-23), across all days in the store
+    public long[] sumAmountByHour() {
+        long[] sums = new long[HOURS_PER_DAY];
+        for (int row = 0; row < rowCount; row++) {
+            sums[(int) (Math.floorMod(epochSeconds[row], SECONDS_PER_DAY) / SECONDS_PER_HOUR)] += amounts[row];
+        }
+        return sums;
+    }
+
+    // Revenue in satang per day from 'from' to 'to' inclusive; rows outside are skipped
+    public long[] sumAmountByDay(LocalDate from, LocalDate to) {
+        long firstDay = from.toEpochDay();
+        int days = (int) (to.toEpochDay() - firstDay + 1);
+        long[] sums = new long[Math.max(0, days)];
+        for (int row = 0; row < rowCount; row++) {
+            long day = Math.floorDiv(epochSeconds[row], SECONDS_PER_DAY) - firstDay;
+            if (day >= 0 && day < days) {
+                sums[(int) day] += amounts[row];
+            }
+        }
+        return sums;
+    }
+
+    // Revenue in satang of rows within [fromEpochSecond, toEpochSecond)
+    public long sumAmountBetween(long fromEpochSecond, long toEpochSecond) {
+        long total = 0;
+        for (int row = 0; row < rowCount; row++) {
+            long time = epochSeconds[row];
+            total += (time >= fromEpochSecond && time < toEpochSecond) ? amounts[row] : 0;
+        }
+        return total;
+    }
+
+    // Raw column access for callers doing their own scans
+    public long getEpochSecond(int row) {
+        return epochSeconds[row];
+    }
+
+    public int getSaleId(int row) {
+        return saleIds[row];
+    }
+
+    public int getProductCodeAt(int row) {
+        return productCodes[row];
+    }
+
+    public int getQuantity(int row) {
+        return quantities[row];
+    }
+
+    public long getAmount(int row) {
+        return amounts[row];
+    }
+
+    private int codeFor(Product product) {
+        int code = getProductCode(product.getId());
+        return code >= 0 ? code : addProduct(product);
+    }
+
+    // Gives a product that is not in the dictionary the next code
+    private int addProduct(Product product) {
+        int code = productsByCode.size();
+        productsByCode.add(product);
+        if ((code + 1) * 2 > productIds.length) { // Keep the load factor at most one half
+            int[] oldIds = productIds;
+            int[] oldCodes = codePlusOne;
+            productIds = new int[oldIds.length * 2];
+            codePlusOne = new int[oldIds.length * 2];
+            for (int slot = 0; slot < oldIds.length; slot++) {
+                if (oldCodes[slot] != 0) {
+                    put(oldIds[slot], oldCodes[slot]);
+                }
+            }
+        }
+        put(product.getId(), code + 1);
+        return code;
+    }
+
+    private void put(int productId, int codeValue) {
+        int mask = productIds.length - 1;
+        int slot = slotOf(productId, mask);
+        while (codePlusOne[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        productIds[slot] = productId;
+        codePlusOne[slot] = codeValue;
+    }
+
+    private static int slotOf(int productId, int mask) {
+        int hash = productId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows > epochSeconds.length) {
+            int capacity = Math.max(rows, epochSeconds.length * 2);
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+            saleIds = Arrays.copyOf(saleIds, capacity);
+            productCodes = Arrays.copyOf(productCodes, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+    }
+}
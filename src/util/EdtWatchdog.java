@@ -0,0 +1,292 @@
+package util;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Watches how quickly the Swing Event Dispatch Thread answers.
+//
+// Every PROBE_INTERVAL_MILLIS the "edt-watchdog" thread posts a probe event and
+// times how long the EDT takes to run it; every latency goes into the
+// "edt.latency" histogram. If a probe is still waiting after the stall
+// threshold, the EDT is busy with one long event: the watchdog takes the EDT's
+// stack at that moment and, once the probe finally runs, records a stall with
+// its duration and handler. The handler is the chain of application methods
+// on the stack, outermost first, e.g.
+//   POSController.showDailySalesSummary > SalesSummaryDialog.loadSalesData
+// Stalls are appended to a log file with their stack, kept in memory (recent
+// ones and totals per handler), counted as "edt.stalls" and included in the
+// Instrumentation report.
+// A modal dialog keeps dispatching events, so time spent in one is not a stall.
+public class EdtWatchdog {
+    public static final long PROBE_INTERVAL_MILLIS = 100;
+    public static final long DEFAULT_STALL_THRESHOLD_MILLIS = 250;
+
+    private static final int RECENT_STALLS = 100;
+    private static final int MAX_LOGGED_FRAMES = 40;
+    private static final String[] APP_PACKAGES = { "controller.", "model.", "util.", "view." };
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LatencyHistogram EDT_LATENCY = LatencyHistogram.named("edt.latency");
+    private static final LongAdder STALLS = Instrumentation.counter("edt.stalls");
+
+    private final long stallThresholdMillis;
+    private final File logFile;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile Thread edt; // Captured by the probes; Swing may replace the EDT
+
+    // Guarded by this
+    private final ArrayDeque<Stall> recentStalls = new ArrayDeque<>();
+    private final Map<String, HandlerStats> statsByHandler = new HashMap<>();
+
+    // One stall of the EDT
+    public static class Stall {
+        private final LocalDateTime time;
+        private final long durationMillis;
+        private final String handler;
+        private final StackTraceElement[] stack;
+
+        Stall(LocalDateTime time, long durationMillis, String handler, StackTraceElement[] stack) {
+            this.time = time;
+            this.durationMillis = durationMillis;
+            this.handler = handler;
+            this.stack = stack;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        // Application methods on the EDT stack, outermost first
+        public String getHandler() {
+            return handler;
+        }
+
+        // EDT stack when the stall passed the threshold
+        public StackTraceElement[] getStack() {
+            return stack.clone();
+        }
+    }
+
+    // Totals of the stalls with one handler
+    public static class HandlerStats {
+        private final String handler;
+        private long count;
+        private long totalMillis;
+        private long maxMillis;
+
+        HandlerStats(String handler) {
+            this.handler = handler;
+        }
+
+        HandlerStats(HandlerStats other) {
+            this.handler = other.handler;
+            this.count = other.count;
+            this.totalMillis = other.totalMillis;
+            this.maxMillis = other.maxMillis;
+        }
+
+        public String getHandler() {
+            return handler;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    // logFile may be null to keep stalls in memory only
+    public EdtWatchdog(long stallThresholdMillis, File logFile) {
+        if (stallThresholdMillis <= 0) {
+            throw new IllegalArgumentException("stallThresholdMillis must be positive: " + stallThresholdMillis);
+        }
+        this.stallThresholdMillis = stallThresholdMillis;
+        this.logFile = logFile;
+        this.thread = new Thread(this::run, "edt-watchdog");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY); // Must get to run while the app is busy
+        Instrumentation.addReportSection(this::report);
+    }
+
+    public void start() {
+        if (EventQueue.isDispatchThread()) {
+            edt = Thread.currentThread(); // Lets a stall before the first probe be traced
+        }
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    public long getStallThresholdMillis() {
+        return stallThresholdMillis;
+    }
+
+    // Most recent stalls, oldest first
+    public synchronized List<Stall> getRecentStalls() {
+        return new ArrayList<>(recentStalls);
+    }
+
+    // Stall totals per handler, most total stall time first
+    public synchronized List<HandlerStats> getStatsByHandler() {
+        List<HandlerStats> stats = new ArrayList<>(statsByHandler.size());
+        for (HandlerStats handlerStats : statsByHandler.values()) {
+            stats.add(new HandlerStats(handlerStats));
+        }
+        stats.sort(Comparator.comparingLong(HandlerStats::getTotalMillis).reversed());
+        return stats;
+    }
+
+    // Stall section of the performance report
+    public String report() {
+        List<HandlerStats> stats = getStatsByHandler();
+        StringBuilder out = new StringBuilder(512);
+        out.append(String.format(Locale.ROOT, "EDT stalls over %d ms: %d%n", stallThresholdMillis, STALLS.sum()));
+        for (HandlerStats handlerStats : stats) {
+            out.append(String.format(Locale.ROOT, "%6d x  total %7d ms  max %6d ms  %s%n",
+                    handlerStats.count, handlerStats.totalMillis, handlerStats.maxMillis, handlerStats.handler));
+        }
+        return out.toString();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                probe();
+                Thread.sleep(PROBE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                // stop() interrupts; the loop condition decides
+            }
+        }
+    }
+
+    private void probe() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long posted = System.nanoTime();
+        EventQueue.invokeLater(() -> {
+            edt = Thread.currentThread();
+            EDT_LATENCY.recordSince(posted);
+            done.countDown();
+        });
+        if (done.await(stallThresholdMillis, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+
+        // The EDT has been busy for the whole threshold: see what it is doing
+        Thread stalledEdt = edt;
+        StackTraceElement[] stack = stalledEdt != null ? stalledEdt.getStackTrace() : new StackTraceElement[0];
+        LocalDateTime time = LocalDateTime.now();
+        while (running && !done.await(PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            // Keep waiting so the stall's full duration is measured
+        }
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - posted);
+        recordStall(new Stall(time, durationMillis, handlerOf(stack), stack));
+    }
+
+    private void recordStall(Stall stall) {
+        STALLS.increment();
+        synchronized (this) {
+            recentStalls.addLast(stall);
+            if (recentStalls.size() > RECENT_STALLS) {
+                recentStalls.removeFirst();
+            }
+            HandlerStats stats = statsByHandler.get(stall.handler);
+            if (stats == null) {
+                stats = new HandlerStats(stall.handler);
+                statsByHandler.put(stall.handler, stats);
+            }
+            stats.count++;
+            stats.totalMillis += stall.durationMillis;
+            stats.maxMillis = Math.max(stats.maxMillis, stall.durationMillis);
+        }
+        System.err.println("EDT stalled for " + stall.durationMillis + " ms in " + stall.handler);
+        appendToLog(stall);
+    }
+
+    private void appendToLog(Stall stall) {
+        if (logFile == null) {
+            return;
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8)) {
+            writer.write(stall.time.format(TIME_FORMAT) + " stall " + stall.durationMillis + " ms in "
+                    + stall.handler + "\n");
+            for (int i = 0; i < Math.min(stall.stack.length, MAX_LOGGED_FRAMES); i++) {
+                writer.write("    at " + stall.stack[i] + "\n");
+            }
+            writer.write("\n");
+        } catch (IOException e) {
+            System.err.println("Error writing EDT stall log: " + e.getMessage());
+        }
+    }
+
+    // Application methods on the stack, outermost first, without lambda bodies
+    // and repeated frames; the innermost frame if there are none
+    static String handlerOf(StackTraceElement[] stack) {
+        StringBuilder handler = new StringBuilder();
+        String previous = null;
+        for (int i = stack.length - 1; i >= 0; i--) {
+            StackTraceElement frame = stack[i];
+            if (!isApplicationFrame(frame) || frame.getMethodName().startsWith("lambda$")
+                    || frame.getMethodName().startsWith("access$")) {
+                continue;
+            }
+            String className = frame.getClassName();
+            String name = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            if (!name.equals(previous)) {
+                handler.append(handler.length() > 0 ? " > " : "").append(name);
+                previous = name;
+            }
+        }
+        if (handler.length() == 0) {
+            return stack.length > 0 ? stack[0].getClassName() + "." + stack[0].getMethodName() : "unknown";
+        }
+        return handler.toString();
+    }
+
+    private static boolean isApplicationFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        if (className.equals(EdtWatchdog.class.getName()) || className.contains("$$Lambda")) {
+            return false;
+        }
+        if (className.indexOf('.') < 0) {
+            return true; // Default package, e.g. Main
+        }
+        for (String appPackage : APP_PACKAGES) {
+            if (className.startsWith(appPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Fake printer that appends every receipt to a text file, for running the till
+// without a printer (-Dpos.printer.file=...) and for exercising the spooler.
+// setOffline(true) makes it fail like a jammed printer until switched back.
+public class FilePrintDevice implements PrintDevice {
+    private final File file;
+    private volatile boolean offline;
+    private volatile long delayMillis;
+
+    public FilePrintDevice(File file) {
+        this.file = file;
+    }
+
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    // Simulated time per receipt, like a slow printer
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void print(String jobName, String text) throws IOException, InterruptedException {
+        if (delayMillis > 0) {
+            Thread.sleep(delayMillis);
+        }
+        if (offline) {
+            throw new IOException("Printer offline");
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write("----- " + jobName + " -----\n");
+            writer.write(text);
+            if (!text.endsWith("\n")) {
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package util;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rendered product icons persisted across restarts as one atlas image plus an
+// index file.
+//
+// The image is a grid of ICON_SIZE cells, COLUMNS wide. The index holds
+//   int magic "CICN" | int version | int icon size | int columns | int count
+// then per cell: UTF product name | UTF key | int cell. The key
+// (IconManager.getProductIconKey) covers the product name, icon size and the
+// colors and symbol it is drawn with, so a product whose look changed simply
+// misses and is re-rendered.
+//
+// load() reads the image once and copies every cell that is still current into
+// the icon cache, including icons rendered on demand for products outside the
+// first screens. save() rewrites both files through temp files.
+public class IconAtlas {
+    public static final String IMAGE_FILE_NAME = "icon_atlas.png";
+    public static final String INDEX_FILE_NAME = "icon_atlas.idx";
+
+    private static final int MAGIC = 0x4349434E; // "CICN"
+    private static final int VERSION = 2;
+    private static final int COLUMNS = 32;
+
+    private final File imageFile;
+    private final File indexFile;
+
+    public IconAtlas() {
+        this(new File(IMAGE_FILE_NAME), new File(INDEX_FILE_NAME));
+    }
+
+    public IconAtlas(File imageFile, File indexFile) {
+        this.imageFile = imageFile;
+        this.indexFile = indexFile;
+    }
+
+    // Puts the atlas icons into IconManager's cache, in the order they were
+    // saved and up to what the cache can hold, and returns the names of the
+    // products whose icons were reused. Missing or stale atlases load nothing.
+    public List<String> load() throws IOException {
+        List<String> loaded = new ArrayList<>();
+        if (!imageFile.exists() || !indexFile.exists()) {
+            return loaded;
+        }
+        Map<String, Integer> cells = readIndex();
+        if (cells == null) {
+            return loaded;
+        }
+
+        int iconSize = IconManager.getProductIconSize();
+        int capacity = IconManager.getProductIconCapacity();
+        BufferedImage atlas = null;
+        int[] pixels = new int[iconSize * iconSize];
+        for (Map.Entry<String, Integer> entry : cells.entrySet()) {
+            if (loaded.size() == capacity) {
+                break; // Loading more would only evict the icons loaded first
+            }
+            if (atlas == null) {
+                atlas = ImageIO.read(imageFile);
+                if (atlas == null) {
+                    throw new IOException("Unreadable icon atlas: " + imageFile);
+                }
+            }
+            int cell = entry.getValue();
+            int x = (cell % COLUMNS) * iconSize;
+            int y = (cell / COLUMNS) * iconSize;
+            if (x + iconSize > atlas.getWidth() || y + iconSize > atlas.getHeight()) {
+                continue;
+            }
+            // Copy the cell so cached icons do not keep the whole atlas alive
+            BufferedImage icon = new BufferedImage(iconSize, iconSize, BufferedImage.TYPE_INT_ARGB);
+            atlas.getRGB(x, y, iconSize, iconSize, pixels, 0, iconSize);
+            icon.setRGB(0, 0, iconSize, iconSize, pixels, 0, iconSize);
+            IconManager.putProductIcon(entry.getKey(), new ImageIcon(icon));
+            loaded.add(entry.getKey());
+        }
+        return loaded;
+    }
+
+    // Writes the cached icons of the named products, in the given order;
+    // products whose icon is not cached are left out and will be rendered on
+    // the next start
+    public int save(Collection<String> productNames) throws IOException {
+        int iconSize = IconManager.getProductIconSize();
+        List<String> names = new ArrayList<>(productNames.size());
+        List<ImageIcon> icons = new ArrayList<>(productNames.size());
+        for (String name : productNames) {
+            ImageIcon icon = IconManager.peekProductIcon(name);
+            if (icon != null) {
+                names.add(name);
+                icons.add(icon);
+            }
+        }
+
+        int rows = Math.max(1, (icons.size() + COLUMNS - 1) / COLUMNS);
+        BufferedImage atlas = new BufferedImage(COLUMNS * iconSize, rows * iconSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = atlas.createGraphics();
+        g2d.setComposite(AlphaComposite.Src); // Copy pixels exactly, alpha included
+        for (int cell = 0; cell < icons.size(); cell++) {
+            icons.get(cell).paintIcon(null, g2d, (cell % COLUMNS) * iconSize, (cell / COLUMNS) * iconSize);
+        }
+        g2d.dispose();
+
+        // Drop the old index before replacing the image it points into, so a crash
+        // in between leaves no index rather than one that mismatches the image
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Cannot replace " + indexFile);
+        }
+        File imageTmp = new File(imageFile.getPath() + ".tmp");
+        if (!ImageIO.write(atlas, "png", imageTmp)) {
+            throw new IOException("No PNG writer available");
+        }
+        replace(imageTmp, imageFile);
+
+        File indexTmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexTmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(iconSize);
+            out.writeInt(COLUMNS);
+            out.writeInt(names.size());
+            for (int cell = 0; cell < names.size(); cell++) {
+                out.writeUTF(names.get(cell));
+                out.writeUTF(IconManager.getProductIconKey(names.get(cell)));
+                out.writeInt(cell);
+            }
+        }
+        replace(indexTmp, indexFile);
+        return names.size();
+    }
+
+    // Cell of each product whose icon is still drawn the same, in saved order,
+    // or null if the index is from another version or icon size
+    private Map<String, Integer> readIndex() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readInt() != IconManager.getProductIconSize() || in.readInt() != COLUMNS) {
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, Integer> cells = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                String key = in.readUTF();
+                int cell = in.readInt();
+                if (key.equals(IconManager.getProductIconKey(name))) {
+                    cells.put(name, cell);
+                }
+            }
+            return cells;
+        }
+    }
+
+    private static void replace(File tmp, File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot replace " + file);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package util;
+
+import javax.swing.ImageIcon;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Thread-safe LRU cache of rendered icons, bounded by the pixel memory it holds.
+//
+// Each icon is weighed as width * height * 4 bytes (ARGB). When an insert takes
+// the total over maxBytes, the least recently used icons are evicted until it
+// fits again. Icons are rendered outside the lock, so two threads missing the
+// same key at once may both render it; the first one stored wins.
+public class IconCache {
+    private final long maxBytes;
+    private final LinkedHashMap<String, ImageIcon> icons = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public IconCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    // Cached icon for the key, rendering and caching it on a miss
+    public ImageIcon get(String key, Supplier<ImageIcon> renderer) {
+        synchronized (this) {
+            ImageIcon icon = icons.get(key);
+            if (icon != null) {
+                hits++;
+                return icon;
+            }
+            misses++;
+        }
+        return putIfAbsent(key, renderer.get());
+    }
+
+    // Cached icon for the key, or null, without touching counters
+    public synchronized ImageIcon peek(String key) {
+        return icons.get(key);
+    }
+
+    // Stores the icon unless the key is already cached; returns the cached icon
+    public synchronized ImageIcon putIfAbsent(String key, ImageIcon icon) {
+        ImageIcon existing = icons.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        icons.put(key, icon);
+        currentBytes += weight(icon);
+        evictToFit();
+        return icon;
+    }
+
+    public synchronized boolean contains(String key) {
+        return icons.containsKey(key);
+    }
+
+    public synchronized void clear() {
+        icons.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return icons.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("IconCache[icons=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                icons.size(), currentBytes, maxBytes, hits, misses, evictions);
+    }
+
+    // Drops least recently used icons, but always keeps the newest one
+    private void evictToFit() {
+        Iterator<Map.Entry<String, ImageIcon>> iterator = icons.entrySet().iterator();
+        while (currentBytes > maxBytes && icons.size() > 1) {
+            ImageIcon evicted = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= weight(evicted);
+            evictions++;
+        }
+    }
+
+    private static long weight(ImageIcon icon) {
+        return 4L * Math.max(1, icon.getIconWidth()) * Math.max(1, icon.getIconHeight());
+    }
+}
@@ -5,13 +5,14 @@ import java.awt.*;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
 
 public class IconManager {
-    private static final Map<String, ImageIcon> iconCache = new HashMap<>();
+    // Room for 1024 product icons (32x32 ARGB); least recently used are evicted
+    private static final long ICON_CACHE_BYTES = 4L * 1024 * 1024;
+    private static final IconCache iconCache = new IconCache(ICON_CACHE_BYTES);
     private static final int ICON_SIZE = 32;
     private static final int BUTTON_ICON_SIZE = 24;
+    private static final Font PRODUCT_SYMBOL_FONT = new Font("Arial", Font.BOLD, 16);
 
     // Color scheme for modern UI
     public static final Color PRIMARY_COLOR = new Color(52, 152, 219);
@@ -23,54 +24,63 @@ public class IconManager {
     public static final Color CARD_COLOR = Color.WHITE;
 
     public static ImageIcon getProductIcon(String productName) {
-        String key = "product_" + productName.toLowerCase();
-        if (iconCache.containsKey(key)) {
-            return iconCache.get(key);
-        }
+        return iconCache.get(productKey(productName), () -> createProductIcon(productName));
+    }
 
-        ImageIcon icon = createProductIcon(productName);
-        iconCache.put(key, icon);
-        return icon;
+    public static boolean isProductIconCached(String productName) {
+        return iconCache.contains(productKey(productName));
     }
 
-    public static ImageIcon getCartIcon() {
-        if (iconCache.containsKey("cart")) {
-            return iconCache.get("cart");
-        }
+    // Cached icon without counting a hit or miss, for painting and bulk export
+    public static ImageIcon peekProductIcon(String productName) {
+        return iconCache.peek(productKey(productName));
+    }
 
-        ImageIcon icon = createCartIcon();
-        iconCache.put("cart", icon);
-        return icon;
+    // Adds an icon rendered elsewhere (e.g. loaded from the icon atlas)
+    public static void putProductIcon(String productName, ImageIcon icon) {
+        iconCache.putIfAbsent(productKey(productName), icon);
     }
 
-    public static ImageIcon getPaymentIcon() {
-        if (iconCache.containsKey("payment")) {
-            return iconCache.get("payment");
-        }
+    public static int getProductIconSize() {
+        return ICON_SIZE;
+    }
 
-        ImageIcon icon = createPaymentIcon();
-        iconCache.put("payment", icon);
-        return icon;
+    // Identifies a rendered product icon: name, size, colors and symbol. Two
+    // icons with the same key are drawn identically.
+    public static String getProductIconKey(String productName) {
+        Color color = getColorForProduct(productName);
+        return productName + '|' + ICON_SIZE + '|' + Integer.toHexString(color.getRGB()) + '|'
+                + Integer.toHexString(color.darker().getRGB()) + '|' + getSymbolForProduct(productName);
     }
 
-    public static ImageIcon getPrintIcon() {
-        if (iconCache.containsKey("print")) {
-            return iconCache.get("print");
-        }
+    // How many product icons fit in the cache at once
+    public static int getProductIconCapacity() {
+        return (int) (ICON_CACHE_BYTES / (4L * ICON_SIZE * ICON_SIZE));
+    }
 
-        ImageIcon icon = createPrintIcon();
-        iconCache.put("print", icon);
-        return icon;
+    private static String productKey(String productName) {
+        return "product_" + productName.toLowerCase();
+    }
+
+    public static ImageIcon getCartIcon() {
+        return iconCache.get("cart", IconManager::createCartIcon);
+    }
+
+    public static ImageIcon getPaymentIcon() {
+        return iconCache.get("payment", IconManager::createPaymentIcon);
+    }
+
+    public static ImageIcon getPrintIcon() {
+        return iconCache.get("print", IconManager::createPrintIcon);
     }
 
     public static ImageIcon getCheckoutIcon() {
-        if (iconCache.containsKey("checkout")) {
-            return iconCache.get("checkout");
-        }
+        return iconCache.get("checkout", IconManager::createCheckoutIcon);
+    }
 
-        ImageIcon icon = createCheckoutIcon();
-        iconCache.put("checkout", icon);
-        return icon;
+    // Hit/miss/eviction counters and memory use of the icon cache
+    public static IconCache getIconCache() {
+        return iconCache;
     }
 
     private static ImageIcon createProductIcon(String productName) {
@@ -90,7 +100,7 @@ public class IconManager {
 
         // Add icon symbol based on product type
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 16));
+        g2d.setFont(PRODUCT_SYMBOL_FONT);
         FontMetrics fm = g2d.getFontMetrics();
         String symbol = getSymbolForProduct(productName);
         int x = (ICON_SIZE - fm.stringWidth(symbol)) / 2;
@@ -0,0 +1,236 @@
+package util;
+
+import model.Product;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Renders product icons into IconManager's cache on background threads.
+//
+// prerender() first loads what it can from the on-disk IconAtlas, then splits
+// the remaining (new or changed) products into batches and renders them in
+// parallel, so the EDT never rasterizes icons itself. Once every batch is done
+// the atlas is rewritten for the next start; if nothing needed rendering, it is
+// rewritten straight away unless it already held every icon.
+// Icons rendered later through request() go into a delayed rewrite, so a
+// scroll burst that renders many of them costs one atlas write.
+// When a batch lands, the listener runs on the EDT; notifications are
+// coalesced, so a burst of batches causes one repaint per EDT turn.
+public class IconPrerenderer {
+    private static final int BATCH_SIZE = 32;
+    private static final long ATLAS_SAVE_DELAY_MILLIS = 10_000;
+
+    private final ExecutorService workers;
+    private final ScheduledExecutorService atlasWriter;
+    private final long atlasSaveDelayMillis;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean notifyScheduled = new AtomicBoolean();
+    private final AtomicBoolean atlasSaveScheduled = new AtomicBoolean();
+    private final AtomicBoolean atlasDirty = new AtomicBoolean(); // Icons rendered since the last save
+    private final AtomicLong renderedCount = new AtomicLong();
+    private final IconAtlas atlas;
+    private volatile List<Product> catalog = new ArrayList<>();
+    // Rendered on demand, or loaded from the atlas although outside the catalog
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private volatile Runnable listener;
+
+    public IconPrerenderer() {
+        this(new IconAtlas(), Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    // atlas may be null to always render from scratch
+    public IconPrerenderer(IconAtlas atlas, int threads) {
+        this(atlas, threads, ATLAS_SAVE_DELAY_MILLIS);
+    }
+
+    IconPrerenderer(IconAtlas atlas, int threads, long atlasSaveDelayMillis) {
+        this.atlas = atlas;
+        this.atlasSaveDelayMillis = atlasSaveDelayMillis;
+        this.atlasWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "icon-atlas-writer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "icon-prerender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // Never compete with the EDT
+            return thread;
+        });
+    }
+
+    // Runs on the EDT after newly rendered icons are in the cache
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    // Renders icons for the products in catalog order, up to what the icon
+    // cache can hold; rendering more would only evict the first screens
+    public void prerender(List<Product> products) {
+        List<Product> catalog = new ArrayList<>(
+                products.subList(0, Math.min(products.size(), IconManager.getProductIconCapacity())));
+        this.catalog = catalog;
+        workers.execute(() -> {
+            int reused = loadAtlas(catalog);
+            if (reused > 0) {
+                notifyListener();
+            }
+
+            List<List<Product>> batches = new ArrayList<>();
+            List<Product> batch = new ArrayList<>(BATCH_SIZE);
+            for (Product product : catalog) {
+                if (!IconManager.isProductIconCached(product.getName()) && pending.add(product.getName())) {
+                    batch.add(product);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    batches.add(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+            if (batches.isEmpty()) {
+                // Nothing to render: the atlas only needs writing if it missed some icons
+                if (reused < catalog.size() || atlasDirty.get()) {
+                    saveAtlas();
+                }
+                return;
+            }
+
+            // The last batch to finish writes the atlas
+            AtomicInteger remaining = new AtomicInteger(batches.size());
+            Runnable onBatchDone = () -> {
+                if (remaining.decrementAndGet() == 0) {
+                    saveAtlas();
+                }
+            };
+            for (List<Product> pendingBatch : batches) {
+                submit(pendingBatch, onBatchDone);
+            }
+        });
+    }
+
+    // Renders one icon that was not cached, e.g. when it scrolls into view
+    public void request(Product product) {
+        if (pending.add(product.getName())) {
+            requested.add(product.getName());
+            List<Product> batch = new ArrayList<>(1);
+            batch.add(product);
+            submit(batch, this::scheduleAtlasSave);
+        }
+    }
+
+    public long getRenderedCount() {
+        return renderedCount.get();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        atlasWriter.shutdownNow();
+    }
+
+    private void submit(List<Product> batch, Runnable onDone) {
+        workers.execute(() -> {
+            for (Product product : batch) {
+                try {
+                    if (!IconManager.isProductIconCached(product.getName())) {
+                        IconManager.getProductIcon(product.getName());
+                        renderedCount.incrementAndGet();
+                        atlasDirty.set(true);
+                    }
+                } finally {
+                    pending.remove(product.getName());
+                }
+            }
+            notifyListener();
+            if (onDone != null) {
+                onDone.run();
+            }
+        });
+    }
+
+    // Loads every icon in the atlas and returns how many catalog products it covered
+    private int loadAtlas(List<Product> catalog) {
+        if (atlas == null) {
+            return 0;
+        }
+        try {
+            Set<String> loaded = new HashSet<>(atlas.load());
+            int reused = 0;
+            for (Product product : catalog) {
+                if (loaded.remove(product.getName())) {
+                    reused++;
+                }
+            }
+            // Icons rendered on demand in earlier runs stay in the atlas
+            requested.addAll(loaded);
+            return reused;
+        } catch (IOException e) {
+            System.err.println("Error loading icon atlas, rendering icons instead: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Coalesces on-demand renders into one atlas rewrite after a quiet period
+    private void scheduleAtlasSave() {
+        if (atlas != null && atlasSaveScheduled.compareAndSet(false, true)) {
+            atlasWriter.schedule(() -> {
+                atlasSaveScheduled.set(false);
+                if (atlasDirty.get()) {
+                    saveAtlas();
+                }
+            }, atlasSaveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes the cached icons of the catalog and of products rendered on demand
+    private synchronized void saveAtlas() {
+        if (atlas == null) {
+            return;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (Product product : catalog) {
+            names.add(product.getName());
+        }
+        names.addAll(requested);
+        atlasDirty.set(false); // Renders during the save mark it dirty again
+        try {
+            atlas.save(names);
+        } catch (IOException e) {
+            atlasDirty.set(true);
+            System.err.println("Error saving icon atlas: " + e.getMessage());
+        }
+    }
+
+    private void notifyListener() {
+        if (listener != null && notifyScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                notifyScheduled.set(false);
+                Runnable current = listener;
+                if (current != null) {
+                    current.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Hot-path instrumentation: named event counters next to the named
+// LatencyHistograms, and a plain-text report of both on demand.
+//
+// Callers keep the histogram or counter in a static final field and time with
+//   long start = System.nanoTime(); ... HISTOGRAM.recordSince(start);
+// which allocates nothing. Reports are built only when someone asks.
+public final class Instrumentation {
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final CopyOnWriteArrayList<Supplier<String>> REPORT_SECTIONS = new CopyOnWriteArrayList<>();
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final DateTimeFormatter HEADER_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private Instrumentation() {
+    }
+
+    // The registered counter with this name, created on first use
+    public static LongAdder counter(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter != null ? counter : COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    // Counter values by name
+    public static Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return values;
+    }
+
+    // Adds text to the end of every report, e.g. EdtWatchdog's stall summary
+    public static void addReportSection(Supplier<String> section) {
+        REPORT_SECTIONS.add(section);
+    }
+
+    // Latency percentiles of every operation and every counter, in milliseconds
+    public static String report() {
+        StringBuilder out = new StringBuilder(2048);
+        out.append("Performance report ").append(LocalDateTime.now().format(HEADER_FORMAT)).append('\n');
+        out.append(String.format(Locale.ROOT, "%-24s %10s %9s %9s %9s %9s %9s %9s%n",
+                "operation (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (LatencyHistogram histogram : LatencyHistogram.all().values()) {
+            out.append(String.format(Locale.ROOT, "%-24s %10d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    histogram.getName(), histogram.getCount(),
+                    histogram.getMeanNanos() / 1e6,
+                    histogram.getPercentileNanos(0.50) / 1e6,
+                    histogram.getPercentileNanos(0.90) / 1e6,
+                    histogram.getPercentileNanos(0.99) / 1e6,
+                    histogram.getPercentileNanos(0.999) / 1e6,
+                    histogram.getMaxNanos() / 1e6));
+        }
+        Map<String, Long> counters = getCounters();
+        if (!counters.isEmpty()) {
+            out.append(String.format(Locale.ROOT, "%n%-24s %10s%n", "counter", "value"));
+            for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                out.append(String.format(Locale.ROOT, "%-24s %10d%n", counter.getKey(), counter.getValue()));
+            }
+        }
+        for (Supplier<String> section : REPORT_SECTIONS) {
+            out.append('\n').append(section.get());
+        }
+        return out.toString();
+    }
+
+    // Writes the report to perf_report_<timestamp>.txt in the directory and returns the file
+    public static File dumpToFile(File directory) throws IOException {
+        File file = new File(directory, "perf_report_" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".txt");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(report());
+        }
+        return file;
+    }
+
+    // Prints the report to standard output
+    public static void log() {
+        System.out.print(report());
+    }
+
+    // Clears every histogram and counter, e.g. before a measured run
+    public static void reset() {
+        for (LatencyHistogram histogram : LatencyHistogram.all().values()) {
+            histogram.reset();
+        }
+        for (LongAdder counter : COUNTERS.values()) {
+            counter.reset();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency distribution of one operation, e.g. a checkout, in the style of
+// HdrHistogram.
+//
+// Values below 32ns get a bucket each. Above that every power of two is split
+// into 16 equal sub-buckets, so a bucket is never wider than 1/16 (6.25%) of
+// the values in it, from nanoseconds up to MAX_TRACKABLE_NANOS (about 18
+// minutes; longer values count in the last bucket). The buckets are one fixed
+// array, so record() is index arithmetic plus a few atomic adds: it allocates
+// nothing and is safe from any thread.
+// Histograms are registered by name with named(); Instrumentation dumps them
+// and the metrics server exports them.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Per power of two
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS; // Values below get a bucket each
+    private static final int MAX_MAGNITUDE = 40;
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_MAGNITUDE + 1)) - 1;
+    public static final int BUCKETS = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    // The registered histogram with this name, created on first use
+    public static LatencyHistogram named(String name) {
+        LatencyHistogram histogram = REGISTRY.get(name);
+        return histogram != null ? histogram : REGISTRY.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    // Registered histograms by name
+    public static Map<String, LatencyHistogram> all() {
+        return new TreeMap<>(REGISTRY);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Records the time since startNanos (a System.nanoTime() value)
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(0, nanos), MAX_TRACKABLE_NANOS);
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long total = count.sum();
+        return total > 0 ? totalNanos.sum() / total : 0;
+    }
+
+    public long getBucketCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    // Copy of every bucket count, for reports that read the histogram in one pass
+    public long[] getBucketCounts() {
+        long[] copy = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            copy[bucket] = counts.get(bucket);
+        }
+        return copy;
+    }
+
+    // Smallest value counted in a bucket
+    public static long bucketLowerBoundNanos(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << shift;
+    }
+
+    // Exclusive upper bound of a bucket
+    public static long bucketUpperBoundNanos(int bucket) {
+        return bucket + 1 < BUCKETS ? bucketLowerBoundNanos(bucket + 1) : MAX_TRACKABLE_NANOS + 1;
+    }
+
+    // Value at or below which the given fraction (0-1) of durations fall,
+    // accurate to the width of its bucket
+    public long getPercentileNanos(double fraction) {
+        long[] snapshot = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBoundNanos(bucket) - 1, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    // Forgets everything recorded so far
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS; // value >>> shift is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+}
@@ -0,0 +1,237 @@
+package util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Optional HTTP endpoint with today's sales figures, for a Prometheus scraper
+// on the till or a manager connecting through an SSH tunnel.
+//
+//   GET /metrics       Prometheus text format
+//   GET /metrics.json  the same figures as JSON
+//
+// Bound to the loopback address only. Every figure comes from memory (the
+// SalesRecorder counters, LatencyHistograms and Instrumentation counters); a
+// request never reads the sales files or blocks a checkout.
+public class MetricsServer {
+    public static final int TOP_ITEMS = 10;
+
+    // Exported bucket bounds are the powers of two from 2^10ns (about 1 microsecond)
+    // to 2^35ns (about 34 seconds), the same on every scrape as Prometheus expects.
+    // Powers of two are LatencyHistogram bucket boundaries, so the counts are exact.
+    private static final int FIRST_EXPORTED_POWER = 10;
+    private static final int LAST_EXPORTED_POWER = 35;
+
+    private final SalesTracker salesTracker;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public MetricsServer(SalesTracker salesTracker, int port) throws IOException {
+        this.salesTracker = salesTracker;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/metrics")) {
+                respond(exchange, "text/plain; version=0.0.4; charset=utf-8", prometheus());
+            } else {
+                respond(exchange, 404, "text/plain; charset=utf-8", "Not found\n");
+            }
+        });
+        server.createContext("/metrics.json", exchange ->
+                respond(exchange, "application/json; charset=utf-8", json()));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Port actually bound, useful when constructed with port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    String prometheus() {
+        SalesRecorder today = salesTracker.getTodaysRecorder();
+        StringBuilder out = new StringBuilder(2048);
+        gauge(out, "pos_sales_revenue_baht", "Revenue of today's sales", baht(today.getRevenueSatang()));
+        gauge(out, "pos_sales_transactions", "Number of sales today", Long.toString(today.getTransactionCount()));
+        gauge(out, "pos_sales_items", "Items sold today", Long.toString(today.getItemCount()));
+
+        out.append("# HELP pos_product_quantity Quantity sold today per product\n");
+        out.append("# TYPE pos_product_quantity gauge\n");
+        for (Map.Entry<String, Long> item : sortedByQuantity(today.getProductQuantities(), Integer.MAX_VALUE)) {
+            out.append("pos_product_quantity{product=\"").append(escapeLabel(item.getKey())).append("\"} ")
+                    .append(item.getValue()).append('\n');
+        }
+
+        out.append("# HELP pos_events_total Events counted by Instrumentation\n");
+        out.append("# TYPE pos_events_total counter\n");
+        for (Map.Entry<String, Long> counter : Instrumentation.getCounters().entrySet()) {
+            out.append("pos_events_total{event=\"").append(escapeLabel(counter.getKey())).append("\"} ")
+                    .append(counter.getValue()).append('\n');
+        }
+
+        out.append("# HELP pos_latency_seconds Latency of POS operations\n");
+        out.append("# TYPE pos_latency_seconds histogram\n");
+        for (LatencyHistogram histogram : LatencyHistogram.all().values()) {
+            String label = "op=\"" + escapeLabel(histogram.getName()) + "\"";
+            long[] counts = histogram.getBucketCounts();
+            long cumulative = 0;
+            int bucket = 0;
+            for (int power = FIRST_EXPORTED_POWER; power <= LAST_EXPORTED_POWER; power++) {
+                long bound = 1L << power;
+                while (bucket < counts.length && LatencyHistogram.bucketUpperBoundNanos(bucket) <= bound) {
+                    cumulative += counts[bucket++];
+                }
+                out.append("pos_latency_seconds_bucket{").append(label).append(",le=\"")
+                        .append(seconds(bound)).append("\"} ").append(cumulative).append('\n');
+            }
+            while (bucket < counts.length) {
+                cumulative += counts[bucket++];
+            }
+            // Count from the buckets just read, so +Inf is never below the last bucket
+            out.append("pos_latency_seconds_bucket{").append(label).append(",le=\"+Inf\"} ")
+                    .append(cumulative).append('\n');
+            out.append("pos_latency_seconds_sum{").append(label).append("} ")
+                    .append(seconds(histogram.getTotalNanos())).append('\n');
+            out.append("pos_latency_seconds_count{").append(label).append("} ")
+                    .append(cumulative).append('\n');
+        }
+        return out.toString();
+    }
+
+    String json() {
+        SalesRecorder today = salesTracker.getTodaysRecorder();
+        StringBuilder out = new StringBuilder(1024);
+        out.append("{\"date\":\"").append(today.getDate()).append('"');
+        out.append(",\"revenue\":").append(baht(today.getRevenueSatang()));
+        out.append(",\"transactions\":").append(today.getTransactionCount());
+        out.append(",\"items\":").append(today.getItemCount());
+
+        out.append(",\"topItems\":[");
+        List<Map.Entry<String, Long>> topItems = sortedByQuantity(today.getProductQuantities(), TOP_ITEMS);
+        for (int i = 0; i < topItems.size(); i++) {
+            out.append(i > 0 ? "," : "").append("{\"name\":");
+            appendJsonString(out, topItems.get(i).getKey());
+            out.append(",\"quantity\":").append(topItems.get(i).getValue()).append('}');
+        }
+
+        out.append("],\"latency\":{");
+        boolean first = true;
+        for (LatencyHistogram histogram : LatencyHistogram.all().values()) {
+            out.append(first ? "" : ",");
+            first = false;
+            appendJsonString(out, histogram.getName());
+            long count = histogram.getCount();
+            out.append(":{\"count\":").append(count);
+            out.append(",\"meanMs\":").append(millis(count > 0 ? histogram.getTotalNanos() / count : 0));
+            out.append(",\"p50Ms\":").append(millis(histogram.getPercentileNanos(0.50)));
+            out.append(",\"p99Ms\":").append(millis(histogram.getPercentileNanos(0.99)));
+            out.append(",\"maxMs\":").append(millis(histogram.getMaxNanos()));
+            out.append('}');
+        }
+        out.append("},\"counters\":{");
+        first = true;
+        for (Map.Entry<String, Long> counter : Instrumentation.getCounters().entrySet()) {
+            out.append(first ? "" : ",");
+            first = false;
+            appendJsonString(out, counter.getKey());
+            out.append(':').append(counter.getValue());
+        }
+        out.append("}}\n");
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, String value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static List<Map.Entry<String, Long>> sortedByQuantity(Map<String, Long> quantities, int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(quantities.entrySet());
+        entries.sort((a, b) -> {
+            int byQuantity = Long.compare(b.getValue(), a.getValue());
+            return byQuantity != 0 ? byQuantity : a.getKey().compareTo(b.getKey());
+        });
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    private static String baht(long satang) {
+        StringBuilder out = new StringBuilder(16);
+        ReceiptTemplate.appendMoney(satang, out);
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        respond(exchange, 200, contentType, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = 405;
+                body = "Method not allowed\n";
+                contentType = "text/plain; charset=utf-8";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
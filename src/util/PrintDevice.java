@@ -0,0 +1,8 @@
+package util;
+
+// Where PrintSpooler sends finished receipts. print() may block for as long as
+// the printer needs; it runs on the spooler thread, never on the EDT.
+// Throwing means the receipt was not printed and the spooler will retry it.
+public interface PrintDevice {
+    void print(String jobName, String text) throws Exception;
+}
@@ -0,0 +1,360 @@
+package util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Prints receipts on a background thread so a slow or jammed printer never
+// holds up the EDT.
+//
+// submit() saves the receipt as a job file in the queue directory and returns.
+// The "print-spooler" thread prints jobs in submission order and deletes each
+// file once its receipt is printed, so jobs still pending at exit (or a crash)
+// are printed on the next start. A failed job stays at the head of the queue
+// and is retried with exponential backoff (1s, 2s, 4s ... up to a minute);
+// later receipts wait behind it so they come out in order.
+//
+// Job file: first line is the job name (the receipt number), the rest is the
+// receipt text, UTF-8.
+public class PrintSpooler {
+    public static final String DEFAULT_DIRECTORY = "print_queue";
+
+    private static final String JOB_SUFFIX = ".job";
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final int FINISHED_HISTORY = 50;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2000;
+
+    public enum State { QUEUED, PRINTING, RETRYING, PRINTED, CANCELLED }
+
+    private final File directory;
+    private final PrintDevice device;
+    private final Thread thread;
+
+    // Guarded by this
+    private final ArrayDeque<Job> queue = new ArrayDeque<>();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>(); // Pending plus recently finished
+    private final ArrayDeque<Long> finishedIds = new ArrayDeque<>();
+    private long nextId = 1;
+    private long printedCount;
+    private long failedAttempts;
+    private boolean shutdown;
+
+    private static class Job {
+        final long id;
+        final String name;
+        final String text;
+        File file; // null if the job could not be saved
+        State state = State.QUEUED;
+        int attempts;
+        String lastError;
+        long nextAttemptMillis;
+        boolean cancelRequested;
+
+        Job(long id, String name, String text, File file) {
+            this.id = id;
+            this.name = name;
+            this.text = text;
+            this.file = file;
+        }
+    }
+
+    // Read-only view of a job for status displays
+    public static class JobStatus {
+        private final long id;
+        private final String name;
+        private final State state;
+        private final int attempts;
+        private final String lastError;
+        private final long nextAttemptMillis;
+
+        JobStatus(Job job) {
+            this.id = job.id;
+            this.name = job.name;
+            this.state = job.state;
+            this.attempts = job.attempts;
+            this.lastError = job.lastError;
+            this.nextAttemptMillis = job.nextAttemptMillis;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        // Message of the last failed attempt, or null
+        public String getLastError() {
+            return lastError;
+        }
+
+        // When a RETRYING job is tried again (System.currentTimeMillis())
+        public long getNextAttemptMillis() {
+            return nextAttemptMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + id + " " + name + " " + state + " (attempts=" + attempts
+                    + (lastError != null ? ", error=" + lastError : "") + ")";
+        }
+    }
+
+    public PrintSpooler(PrintDevice device) {
+        this(new File(DEFAULT_DIRECTORY), device);
+    }
+
+    // Picks up jobs left in the directory by a previous run
+    public PrintSpooler(File directory, PrintDevice device) {
+        this.directory = directory;
+        this.device = device;
+        if (!directory.exists() && !directory.mkdirs()) {
+            System.err.println("Error creating print queue directory: " + directory);
+        }
+        recover();
+        this.thread = new Thread(this::run, "print-spooler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Queues a receipt and returns its job id without waiting for the printer.
+    // If the job file cannot be written the receipt is still printed, it just
+    // would not survive a restart.
+    public synchronized long submit(String name, String text) {
+        if (shutdown) {
+            throw new IllegalStateException("Print spooler is shut down");
+        }
+        long id = nextId++;
+        File file = new File(directory, String.format("%010d", id) + JOB_SUFFIX);
+        try {
+            writeJob(file, name, text);
+        } catch (IOException e) {
+            System.err.println("Error saving print job " + name + ": " + e.getMessage());
+            file = null;
+        }
+        Job job = new Job(id, name, text, file);
+        jobs.put(id, job);
+        queue.addLast(job);
+        notifyAll();
+        return id;
+    }
+
+    // Status of a pending or recently finished job, or null if unknown
+    public synchronized JobStatus getStatus(long id) {
+        Job job = jobs.get(id);
+        return job != null ? new JobStatus(job) : null;
+    }
+
+    // Pending jobs in print order, then recently finished ones
+    public synchronized List<JobStatus> getJobs() {
+        List<JobStatus> statuses = new ArrayList<>(jobs.size());
+        for (Job job : queue) {
+            statuses.add(new JobStatus(job));
+        }
+        for (Job job : jobs.values()) {
+            if (job.state == State.PRINTED || job.state == State.CANCELLED) {
+                statuses.add(new JobStatus(job));
+            }
+        }
+        return statuses;
+    }
+
+    public synchronized int getPendingCount() {
+        return queue.size();
+    }
+
+    public synchronized long getPrintedCount() {
+        return printedCount;
+    }
+
+    public synchronized long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    // Drops a job that has not printed yet. A job being printed right now is
+    // only dropped if that attempt fails.
+    public synchronized boolean cancel(long id) {
+        Job job = jobs.get(id);
+        if (job == null || job.state == State.PRINTED || job.state == State.CANCELLED) {
+            return false;
+        }
+        if (job.state == State.PRINTING) {
+            job.cancelRequested = true;
+            return true;
+        }
+        queue.remove(job);
+        finish(job, State.CANCELLED);
+        notifyAll();
+        return true;
+    }
+
+    // Retries a waiting job immediately, e.g. after paper was put in
+    public synchronized void retryNow() {
+        Job head = queue.peekFirst();
+        if (head != null && head.state == State.RETRYING) {
+            head.nextAttemptMillis = 0;
+            notifyAll();
+        }
+    }
+
+    // Stops the thread; unprinted jobs stay on disk for the next start
+    public void shutdown() {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            notifyAll();
+        }
+        try {
+            thread.join(SHUTDOWN_TIMEOUT_MILLIS); // The printer may still be busy; the thread is a daemon
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PrintSpooler[pending=" + queue.size() + ", printed=" + printedCount
+                + ", failedAttempts=" + failedAttempts + "]";
+    }
+
+    private void run() {
+        while (true) {
+            Job job = nextJob();
+            if (job == null) {
+                return;
+            }
+
+            String error = null;
+            try {
+                device.print(job.name, job.text);
+            } catch (Exception e) {
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+
+            synchronized (this) {
+                if (error == null) {
+                    queue.remove(job);
+                    printedCount++;
+                    finish(job, State.PRINTED);
+                } else {
+                    failedAttempts++;
+                    job.lastError = error;
+                    if (job.cancelRequested) {
+                        queue.remove(job);
+                        finish(job, State.CANCELLED);
+                    } else {
+                        job.state = State.RETRYING;
+                        job.nextAttemptMillis = System.currentTimeMillis() + backoffMillis(job.attempts);
+                        System.err.println("Error printing receipt " + job.name + " (attempt " + job.attempts
+                                + "): " + error);
+                    }
+                }
+            }
+        }
+    }
+
+    // Waits until the head job is due and marks it PRINTING; null on shutdown
+    private synchronized Job nextJob() {
+        while (!shutdown) {
+            Job head = queue.peekFirst();
+            long wait = 0;
+            if (head != null) {
+                wait = head.nextAttemptMillis - System.currentTimeMillis();
+                if (wait <= 0) {
+                    head.state = State.PRINTING;
+                    head.attempts++;
+                    return head;
+                }
+            }
+            try {
+                wait(wait); // 0 waits until notified
+            } catch (InterruptedException e) {
+                // Only shutdown() stops the spooler
+            }
+        }
+        return null;
+    }
+
+    private void finish(Job job, State state) {
+        job.state = state;
+        if (job.file != null && job.file.exists() && !job.file.delete()) {
+            System.err.println("Error deleting print job file: " + job.file);
+        }
+        job.file = null;
+        finishedIds.addLast(job.id);
+        if (finishedIds.size() > FINISHED_HISTORY) {
+            jobs.remove(finishedIds.removeFirst());
+        }
+    }
+
+    static long backoffMillis(int attempts) {
+        int doublings = Math.min(attempts - 1, 16);
+        return Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.max(0, doublings));
+    }
+
+    private void recover() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files); // Zero-padded ids sort in submission order
+        for (File file : files) {
+            String fileName = file.getName();
+            if (fileName.endsWith(".tmp")) {
+                file.delete(); // Never renamed, so never acknowledged
+                continue;
+            }
+            if (!fileName.endsWith(JOB_SUFFIX)) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(fileName.substring(0, fileName.length() - JOB_SUFFIX.length()));
+                String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                int newline = content.indexOf('\n');
+                String name = newline >= 0 ? content.substring(0, newline) : content;
+                String text = newline >= 0 ? content.substring(newline + 1) : "";
+                Job job = new Job(id, name, text, file);
+                jobs.put(id, job);
+                queue.addLast(job);
+                nextId = Math.max(nextId, id + 1);
+            } catch (NumberFormatException | IOException e) {
+                System.err.println("Error reading print job " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeJob(File file, String name, String text) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            writer.write(name.replace('\n', ' '));
+            writer.write('\n');
+            writer.write(text);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Issues receipt numbers that only ever go up and never repeat, across restarts
+// and concurrent checkouts.
+//
+// Numbers are taken from an in-memory counter. The process reserves them in
+// blocks: before the first number of a block is handed out, the end of the
+// block (the high-water mark) is saved to the state file, so a sale costs one
+// atomic increment and disk is touched once per BLOCK_SIZE sales. Once fewer
+// than a quarter of the reserved numbers are left, the "receipt-number-reserver"
+// thread reserves the next block, so a checkout only waits for the disk if it
+// uses up the reservation before that write has finished.
+// close() records the next unused number, so a clean restart continues without
+// a gap. After a crash the unused rest of the last block is skipped; the
+// skipped range is logged and available from getGapStart()/getGapEnd().
+//
+// Each till keeps its own state file and has its own terminal id, which is part
+// of every number, e.g. "POS01-000042", so tills never collide either. The id
+// is -Dpos.terminal when given; otherwise the first start picks a random one
+// and keeps it in the state file, so tills that were never configured still
+// get different ids.
+public class ReceiptNumberGenerator {
+    public static final String DEFAULT_STATE_FILE = "receipt_numbers.properties";
+    public static final int BLOCK_SIZE = 100;
+
+    private static final int MIN_DIGITS = 6;
+    private static final int RANDOM_TERMINAL_DIGITS = 6;
+
+    private final File stateFile;
+    private final String terminalId;
+    private final String prefix;
+    private final int blockSize;
+    private final int lowWater; // Reserve ahead once this few reserved numbers are left
+    private final AtomicLong counter;
+    private volatile long limit; // Numbers below this are reserved on disk
+    private final long gapStart;
+    private final long gapEnd;
+    private final ExecutorService reserver;
+    private final AtomicBoolean reservationQueued = new AtomicBoolean();
+    private boolean closed; // Guarded by this; stops reserving ahead after close()
+
+    // terminalId may be null to use the id kept in the state file
+    public ReceiptNumberGenerator(String terminalId) {
+        this(new File(DEFAULT_STATE_FILE), terminalId, BLOCK_SIZE);
+    }
+
+    public ReceiptNumberGenerator(File stateFile, String terminalId, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.stateFile = stateFile;
+        this.blockSize = blockSize;
+        this.lowWater = Math.max(1, blockSize / 4);
+
+        long next = 1;
+        long start = 1;
+        long end = 1;
+        String savedTerminalId = null;
+        if (stateFile.exists()) {
+            try {
+                Properties state = readState(stateFile);
+                savedTerminalId = state.getProperty("terminal");
+                long savedNext = Long.parseLong(state.getProperty("next"));
+                long savedLimit = Long.parseLong(state.getProperty("limit"));
+                if (Boolean.parseBoolean(state.getProperty("clean"))) {
+                    next = savedNext;
+                } else {
+                    // Anything below the reserved limit may have been issued
+                    next = savedLimit;
+                    start = savedNext;
+                    end = savedLimit;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Counters stay far below the epoch second, so this is past anything issued
+                next = System.currentTimeMillis() / 1000;
+                System.err.println("Error reading receipt numbers, continuing from " + next + ": " + e.getMessage());
+            }
+        }
+        if (end > start) {
+            System.err.println("Receipt numbers " + start + " to " + (end - 1)
+                    + " may be unused after an unclean shutdown");
+        }
+        this.gapStart = start;
+        this.gapEnd = end;
+        this.counter = new AtomicLong(next);
+        this.limit = next;
+
+        if (terminalId == null || terminalId.isEmpty()) {
+            terminalId = savedTerminalId != null && !savedTerminalId.isEmpty() ? savedTerminalId : randomTerminalId();
+        }
+        this.terminalId = terminalId;
+        this.prefix = "POS" + terminalId + "-";
+        if (!terminalId.equals(savedTerminalId)) {
+            try {
+                // Keep a new id even if this run never issues a number
+                writeState(next, next, true);
+            } catch (IOException e) {
+                System.err.println("Error saving terminal id: " + e.getMessage());
+            }
+        }
+
+        this.reserver = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "receipt-number-reserver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Next receipt number, e.g. "POS01-000042"
+    public String next() {
+        return format(nextNumber());
+    }
+
+    public long nextNumber() {
+        long number = counter.getAndIncrement();
+        if (number >= limit) {
+            reserveThrough(number); // The reservation ahead has not caught up; wait for the disk
+        }
+        if (limit - number <= lowWater && reservationQueued.compareAndSet(false, true)) {
+            reserver.execute(this::reserveAhead);
+        }
+        return number;
+    }
+
+    // Id in every number; -Dpos.terminal or the one kept in the state file
+    public String getTerminalId() {
+        return terminalId;
+    }
+
+    public String format(long number) {
+        String digits = Long.toString(number);
+        StringBuilder result = new StringBuilder(prefix.length() + Math.max(MIN_DIGITS, digits.length()));
+        result.append(prefix);
+        for (int i = digits.length(); i < MIN_DIGITS; i++) {
+            result.append('0');
+        }
+        return result.append(digits).toString();
+    }
+
+    // First number skipped by the last unclean shutdown; equals getGapEnd() if none
+    public long getGapStart() {
+        return gapStart;
+    }
+
+    // One past the last skipped number
+    public long getGapEnd() {
+        return gapEnd;
+    }
+
+    // Saves the next unused number so the next start continues without a gap.
+    // Call it once checkouts have stopped; a number issued afterwards reserves a
+    // new block again, which voids the clean state.
+    public synchronized void close() {
+        closed = true;
+        long next = counter.get();
+        try {
+            writeState(next, next, true);
+            limit = next;
+        } catch (IOException e) {
+            System.err.println("Error saving receipt numbers: " + e.getMessage());
+        }
+    }
+
+    // Waits until reservations already queued on the reserver thread are saved
+    void awaitReservations() throws InterruptedException, ExecutionException {
+        reserver.submit(() -> { }).get();
+    }
+
+    // Runs on the reserver thread: takes the next block before the current one runs out
+    private synchronized void reserveAhead() {
+        reservationQueued.set(false);
+        if (!closed) {
+            reserveThrough(counter.get() + lowWater - 1);
+        }
+    }
+
+    // Extends the reservation on disk until it covers number. Concurrent callers
+    // queue here; whoever enters first reserves for the others as well.
+    private synchronized void reserveThrough(long number) {
+        if (number < limit) {
+            return;
+        }
+        closed = false; // Numbers issued after close() void the clean state
+        long newLimit = limit;
+        while (newLimit <= number) {
+            newLimit += blockSize;
+        }
+        try {
+            // Numbers not yet handed out may be unused if the process dies
+            writeState(Math.min(counter.get(), limit), newLimit, false);
+        } catch (IOException e) {
+            // Keep selling; a restart may then repeat numbers from this block
+            System.err.println("Error reserving receipt numbers: " + e.getMessage());
+        }
+        limit = newLimit;
+    }
+
+    private void writeState(long next, long reservedLimit, boolean clean) throws IOException {
+        Properties state = new Properties();
+        state.setProperty("next", Long.toString(next));
+        state.setProperty("limit", Long.toString(reservedLimit));
+        state.setProperty("clean", Boolean.toString(clean));
+        state.setProperty("terminal", terminalId);
+
+        File tmp = new File(stateFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            state.store(out, "Receipt numbers - do not edit");
+            out.getFD().sync(); // Must be on disk before any number of the block is used
+        }
+        // Atomic replace: with delete-then-rename a crash in between would lose the
+        // high-water mark and restart numbering from 1
+        Files.move(tmp.toPath(), stateFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String randomTerminalId() {
+        String hex = Long.toHexString(new SecureRandom().nextLong() | Long.MIN_VALUE).toUpperCase();
+        return hex.substring(hex.length() - RANDOM_TERMINAL_DIGITS);
+    }
+
+    private static Properties readState(File file) throws IOException {
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            state.load(in);
+        }
+        return state;
+    }
+}
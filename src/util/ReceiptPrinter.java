@@ -1,114 +1,123 @@
 package util;
 
-import model.CartItem;
+import model.Cart;
+import model.Sale;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.print.*;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-
-public class ReceiptPrinter implements Printable {
-    private HashMap<Integer, CartItem> cartItems;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Receipt for one completed sale.
+//
+// Creating a ReceiptPrinter only stores the sale; the text is rendered from the
+// compiled RECEIPT_TEMPLATE the first time preview, print or save asks for it,
+// so checkout never pays for a receipt nobody looks at. Printing hands the text
+// to a PrintSpooler and returns at once.
+public class ReceiptPrinter {
+    private Cart cart;
     private double totalAmount;
     private double receivedAmount;
     private double changeAmount;
-    private String receiptContent;
+    private final LocalDateTime saleDateTime;
+    private final String receiptNumber;
+    private final PrintSpooler printSpooler;
+    private volatile String receiptContent; // Rendered on first use
     private static final String STORE_NAME = "Coffee POS Store";
     private static final String STORE_ADDRESS = "Nonthaburi, Thailand";
     private static final String STORE_PHONE = "Tel: +66 640-297-030";
     private static final String STORE_EMAIL = "Kittiphatphengnamkham@gmail.com";
+    private static final int RECEIPT_WIDTH = 50;
+    private static final LatencyHistogram RENDER_LATENCY = LatencyHistogram.named("receipt.render");
+    private static final LatencyHistogram PRINT_LATENCY = LatencyHistogram.named("receipt.print.queue");
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final ReceiptTemplate RECEIPT_TEMPLATE = ReceiptTemplate.compile(
+            "@rule =\n" +
+                    "@center " + STORE_NAME + "\n" +
+                    "@center " + STORE_ADDRESS + "\n" +
+                    "@center " + STORE_PHONE + "\n" +
+                    "@center " + STORE_EMAIL + "\n" +
+                    "@rule =\n" +
+                    "@center SALES RECEIPT\n" +
+                    "@rule =\n" +
+                    "Date: {date}\n" +
+                    "Receipt#: {receiptNumber}\n" +
+                    "@rule -\n" +
+                    "Item                   Qty    Price        Total\n" +
+                    "@rule -\n" +
+                    "@items\n" +
+                    "{item.name:<20} {item.qty:>5} {item.price:>8} {item.total:>12}\n" +
+                    "@end\n" +
+                    "@rule -\n" +
+                    "Total Items: {totalItems}\n" +
+                    "TOTAL: ฿{total}\n" +
+                    "@rule -\n" +
+                    "Cash Received: ฿{received}\n" +
+                    "Change: ฿{change}\n" +
+                    "@rule =\n" +
+                    "@center Thank You for Your Purchase!\n" +
+                    "@center Have a Great Day!\n" +
+                    "@center Visit us again soon!\n" +
+                    "@rule =\n" +
+                    "@center ** This is a computer generated receipt **\n" +
+                    "@center No signature required\n",
+            RECEIPT_WIDTH);
+
+    // Receipts are rendered on the EDT one at a time; reuse one buffer per thread
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+
+    public ReceiptPrinter(Cart cart, double totalAmount,
+            double receivedAmount, double changeAmount, String receiptNumber) {
+        this(cart, totalAmount, receivedAmount, changeAmount, receiptNumber, null);
+    }
+
+    // printSpooler may be null when the receipt is only previewed or saved
+    public ReceiptPrinter(Cart cart, double totalAmount,
+            double receivedAmount, double changeAmount, String receiptNumber, PrintSpooler printSpooler) {
+        this(cart, totalAmount, receivedAmount, changeAmount, LocalDateTime.now(), receiptNumber, printSpooler);
+    }
+
+    // Receipt for a recorded sale, stamped with the sale's own time and number
+    public ReceiptPrinter(Sale sale, PrintSpooler printSpooler) {
+        this(sale.getCart(), sale.getTotalAmount(), sale.getReceivedAmount(), sale.getChangeAmount(),
+                sale.getSaleDateTime(), sale.getReceiptNumber(), printSpooler);
+    }
 
-    public ReceiptPrinter(HashMap<Integer, CartItem> cartItems, double totalAmount,
-            double receivedAmount, double changeAmount) {
-        this.cartItems = cartItems;
+    private ReceiptPrinter(Cart cart, double totalAmount, double receivedAmount, double changeAmount,
+            LocalDateTime saleDateTime, String receiptNumber, PrintSpooler printSpooler) {
+        this.printSpooler = printSpooler;
+        this.cart = cart.snapshot();
         this.totalAmount = totalAmount;
         this.receivedAmount = receivedAmount;
         this.changeAmount = changeAmount;
-        this.receiptContent = generateReceiptContent();
+        this.saleDateTime = saleDateTime;
+        this.receiptNumber = receiptNumber;
     }
 
-    private String generateReceiptContent() {
-        StringBuilder receipt = new StringBuilder();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        String currentDateTime = dateFormat.format(new Date());
-
-        // Header
-        receipt.append(repeatString("=", 50)).append("\n");
-        receipt.append(centerText(STORE_NAME, 50)).append("\n");
-        receipt.append(centerText(STORE_ADDRESS, 50)).append("\n");
-        receipt.append(centerText(STORE_PHONE, 50)).append("\n");
-        receipt.append(centerText(STORE_EMAIL, 50)).append("\n");
-        receipt.append(repeatString("=", 50)).append("\n");
-        receipt.append(centerText("SALES RECEIPT", 50)).append("\n");
-        receipt.append(repeatString("=", 50)).append("\n");
-
-        // Date and Receipt Number
-        receipt.append(String.format("Date: %s\n", currentDateTime));
-        receipt.append(String.format("Receipt#: POS%d\n", System.currentTimeMillis() % 100000));
-        receipt.append(repeatString("-", 50)).append("\n");
-
-        // Items Header
-        receipt.append(String.format("%-20s %5s %8s %12s\n", "Item", "Qty", "Price", "Total"));
-        receipt.append(repeatString("-", 50)).append("\n");
-
-        // Items
-        for (Map.Entry<Integer, CartItem> entry : cartItems.entrySet()) {
-            CartItem item = entry.getValue();
-            String itemName = item.getProduct().getName();
-            if (itemName.length() > 20) {
-                itemName = itemName.substring(0, 17) + "...";
-            }
-
-            receipt.append(String.format("%-20s %5d %8.2f %12.2f\n",
-                    itemName,
-                    item.getQuantity(),
-                    item.getProduct().getPrice(),
-                    item.getTotalPrice()));
-        }
-
-        receipt.append(repeatString("-", 50)).append("\n");
-
-        // Totals
-        int totalItems = cartItems.values().stream().mapToInt(CartItem::getQuantity).sum();
-        receipt.append(String.format("Total Items: %d\n", totalItems));
-        receipt.append(String.format("TOTAL: ฿%.2f\n", totalAmount));
-        receipt.append(repeatString("-", 50)).append("\n");
+    public Cart getCart() {
+        return cart;
+    }
 
-        // Payment
-        receipt.append(String.format("Cash Received: ฿%.2f\n", receivedAmount));
-        receipt.append(String.format("Change: ฿%.2f\n", changeAmount));
-        receipt.append(repeatString("=", 50)).append("\n");
+    public double getTotalAmount() {
+        return totalAmount;
+    }
 
-        // Footer
-        receipt.append(centerText("Thank You for Your Purchase!", 50)).append("\n");
-        receipt.append(centerText("Have a Great Day!", 50)).append("\n");
-        receipt.append(centerText("Visit us again soon!", 50)).append("\n");
-        receipt.append(repeatString("=", 50)).append("\n");
-        receipt.append(centerText("** This is a computer generated receipt **", 50)).append("\n");
-        receipt.append(centerText("No signature required", 50)).append("\n");
+    public double getReceivedAmount() {
+        return receivedAmount;
+    }
 
-        return receipt.toString();
+    public double getChangeAmount() {
+        return changeAmount;
     }
 
-    private String centerText(String text, int width) {
-        if (text.length() >= width) {
-            return text;
-        }
-        int padding = (width - text.length()) / 2;
-        return repeatString(" ", padding) + text;
+    public LocalDateTime getSaleDateTime() {
+        return saleDateTime;
     }
 
-    // Helper method to replace String.repeat() for Java compatibility
-    private String repeatString(String str, int count) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < count; i++) {
-            sb.append(str);
-        }
-        return sb.toString();
+    public String getReceiptNumber() {
+        return receiptNumber;
     }
 
     public void showReceiptPreview(Component parent) {
@@ -118,7 +127,7 @@ public class ReceiptPrinter implements Printable {
         previewDialog.setLocationRelativeTo(parent);
 
         // Create text area with receipt content
-        JTextArea textArea = new JTextArea(receiptContent);
+        JTextArea textArea = new JTextArea(getReceiptContent());
         textArea.setFont(new Font("Courier New", Font.PLAIN, 11));
         textArea.setEditable(false);
         textArea.setBackground(Color.WHITE);
@@ -173,20 +182,25 @@ public class ReceiptPrinter implements Printable {
         previewDialog.setVisible(true);
     }
 
+    // Queues the receipt for printing; the printer is driven by the spooler thread
     public void printReceipt(Component parent) {
+        if (printSpooler == null) {
+            JOptionPane.showMessageDialog(parent,
+                    "Printing is not available.",
+                    "Print Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         try {
-            PrinterJob job = PrinterJob.getPrinterJob();
-            job.setPrintable(this);
-
-            // Show print dialog
-            if (job.printDialog()) {
-                job.print();
-                JOptionPane.showMessageDialog(parent,
-                        "Receipt sent to printer successfully!",
-                        "Print Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-            }
-        } catch (PrinterException e) {
+            long start = System.nanoTime();
+            printSpooler.submit(receiptNumber, getReceiptContent());
+            PRINT_LATENCY.recordSince(start);
+            int pending = printSpooler.getPendingCount();
+            JOptionPane.showMessageDialog(parent,
+                    "Receipt sent to printer!" + (pending > 1 ? "\n" + pending + " receipts waiting to print." : ""),
+                    "Print Queued",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } catch (IllegalStateException e) {
             JOptionPane.showMessageDialog(parent,
                     "Failed to print receipt: " + e.getMessage(),
                     "Print Error",
@@ -198,13 +212,13 @@ public class ReceiptPrinter implements Printable {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save Receipt");
         fileChooser.setSelectedFile(new java.io.File("receipt_" +
-                new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".txt"));
+                LocalDateTime.now().format(FILE_NAME_FORMAT) + ".txt"));
 
         int userSelection = fileChooser.showSaveDialog(parent);
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             try (FileWriter writer = new FileWriter(fileChooser.getSelectedFile())) {
-                writer.write(receiptContent);
+                writer.write(getReceiptContent());
                 JOptionPane.showMessageDialog(parent,
                         "Receipt saved successfully!",
                         "Save Success",
@@ -218,39 +232,17 @@ public class ReceiptPrinter implements Printable {
         }
     }
 
-    @Override
-    public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
-        if (pageIndex > 0) {
-            return NO_SUCH_PAGE;
-        }
-
-        Graphics2D g2d = (Graphics2D) graphics;
-        g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
-
-        // Set font for printing
-        Font font = new Font("Courier New", Font.PLAIN, 8);
-        g2d.setFont(font);
-        FontMetrics fm = g2d.getFontMetrics();
-
-        // Print each line
-        String[] lines = receiptContent.split("\n");
-        int lineHeight = fm.getHeight();
-        int y = lineHeight;
-
-        for (String line : lines) {
-            g2d.drawString(line, 0, y);
-            y += lineHeight;
-
-            // Check if we need a new page (simple implementation)
-            if (y > pageFormat.getImageableHeight() - lineHeight) {
-                break;
-            }
-        }
-
-        return PAGE_EXISTS;
-    }
-
     public String getReceiptContent() {
-        return receiptContent;
+        String content = receiptContent;
+        if (content == null) {
+            long start = System.nanoTime();
+            StringBuilder buffer = RENDER_BUFFER.get();
+            buffer.setLength(0);
+            RECEIPT_TEMPLATE.render(this, buffer);
+            content = buffer.toString();
+            receiptContent = content;
+            RENDER_LATENCY.recordSince(start);
+        }
+        return content;
     }
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+package util;
+
+import model.Cart;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Receipt layout compiled once and rendered straight into a StringBuilder.
+//
+// Layout syntax, one line per receipt line:
+//   @rule C          C repeated across the receipt width
+//   @center TEXT     TEXT centered (padding worked out at compile time)
+//   @items ... @end  lines repeated for every cart line
+//   anything else    literal text with {field}, {field:<N} (left, width N)
+//                    or {field:>N} (right, width N) placeholders
+// Text fields longer than their width are cut to width-3 and "...".
+//
+// Rendering does no formatting lookups: literals are appended as-is, numbers
+// and dates are written digit by digit and padding comes from a shared array.
+public class ReceiptTemplate {
+    private static final char[] SPACES = new char[256];
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    private enum Field {
+        DATE("date", false, false),
+        RECEIPT_NUMBER("receiptNumber", false, true),
+        TOTAL_ITEMS("totalItems", false, false),
+        TOTAL("total", false, false),
+        RECEIVED("received", false, false),
+        CHANGE("change", false, false),
+        ITEM_NAME("item.name", true, true),
+        ITEM_QTY("item.qty", true, false),
+        ITEM_PRICE("item.price", true, false),
+        ITEM_TOTAL("item.total", true, false);
+
+        final String name;
+        final boolean perItem;
+        final boolean text;
+
+        Field(String name, boolean perItem, boolean text) {
+            this.name = name;
+            this.perItem = perItem;
+            this.text = text;
+        }
+
+        static Field named(String name) {
+            for (Field field : values()) {
+                if (field.name.equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final int width;
+    private final Segment[] segments;
+
+    private ReceiptTemplate(int width, List<Segment> segments) {
+        this.width = width;
+        this.segments = segments.toArray(new Segment[0]);
+    }
+
+    public static ReceiptTemplate compile(String layout, int width) {
+        List<Segment> segments = new ArrayList<>();
+        List<Segment> itemSegments = null;
+        String[] lines = layout.split("\n", -1);
+        for (int lineNumber = 0; lineNumber < lines.length; lineNumber++) {
+            String line = lines[lineNumber];
+            if (lineNumber == lines.length - 1 && line.isEmpty()) {
+                break; // Trailing newline
+            }
+            List<Segment> target = itemSegments != null ? itemSegments : segments;
+
+            if (line.equals("@items")) {
+                if (itemSegments != null) {
+                    throw error(lineNumber, "nested @items");
+                }
+                itemSegments = new ArrayList<>();
+            } else if (line.equals("@end")) {
+                if (itemSegments == null) {
+                    throw error(lineNumber, "@end without @items");
+                }
+                segments.add(new ItemsSegment(itemSegments));
+                itemSegments = null;
+            } else if (line.startsWith("@rule ")) {
+                if (line.length() != 7) {
+                    throw error(lineNumber, "@rule takes one character");
+                }
+                target.add(new LiteralSegment(repeat(line.charAt(6), width) + "\n"));
+            } else if (line.startsWith("@center ")) {
+                String text = line.substring(8);
+                int padding = text.length() >= width ? 0 : (width - text.length()) / 2;
+                target.add(new LiteralSegment(repeat(' ', padding) + text + "\n"));
+            } else {
+                compileLine(line + "\n", lineNumber, itemSegments != null, target);
+            }
+        }
+        if (itemSegments != null) {
+            throw error(lines.length, "@items without @end");
+        }
+        return new ReceiptTemplate(width, segments);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    // Appends the rendered receipt to out
+    public void render(ReceiptPrinter receipt, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.render(receipt, 0, out);
+        }
+    }
+
+    private static void compileLine(String line, int lineNumber, boolean inItems, List<Segment> target) {
+        int position = 0;
+        while (position < line.length()) {
+            int open = line.indexOf('{', position);
+            if (open < 0) {
+                target.add(new LiteralSegment(line.substring(position)));
+                return;
+            }
+            if (open > position) {
+                target.add(new LiteralSegment(line.substring(position, open)));
+            }
+            int close = line.indexOf('}', open);
+            if (close < 0) {
+                throw error(lineNumber, "unclosed {");
+            }
+
+            String spec = line.substring(open + 1, close);
+            String name = spec;
+            int fieldWidth = 0;
+            boolean rightAligned = false;
+            int colon = spec.indexOf(':');
+            if (colon >= 0) {
+                name = spec.substring(0, colon);
+                String format = spec.substring(colon + 1);
+                if (format.length() < 2 || (format.charAt(0) != '<' && format.charAt(0) != '>')) {
+                    throw error(lineNumber, "bad format '" + format + "'");
+                }
+                rightAligned = format.charAt(0) == '>';
+                try {
+                    fieldWidth = Integer.parseInt(format.substring(1));
+                } catch (NumberFormatException e) {
+                    throw error(lineNumber, "bad width '" + format + "'");
+                }
+                if (fieldWidth > SPACES.length) {
+                    throw error(lineNumber, "width " + fieldWidth + " exceeds " + SPACES.length);
+                }
+            }
+
+            Field field = Field.named(name);
+            if (field == null) {
+                throw error(lineNumber, "unknown field '" + name + "'");
+            }
+            if (field.perItem && !inItems) {
+                throw error(lineNumber, "'" + name + "' outside @items");
+            }
+            target.add(new FieldSegment(field, fieldWidth, rightAligned));
+            position = close + 1;
+        }
+    }
+
+    private static IllegalArgumentException error(int lineNumber, String message) {
+        return new IllegalArgumentException("Receipt layout line " + (lineNumber + 1) + ": " + message);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private abstract static class Segment {
+        // line is the cart line for segments inside @items
+        abstract void render(ReceiptPrinter receipt, int line, StringBuilder out);
+    }
+
+    private static class LiteralSegment extends Segment {
+        private final String text;
+
+        LiteralSegment(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void render(ReceiptPrinter receipt, int line, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static class ItemsSegment extends Segment {
+        private final Segment[] segments;
+
+        ItemsSegment(List<Segment> segments) {
+            this.segments = segments.toArray(new Segment[0]);
+        }
+
+        @Override
+        void render(ReceiptPrinter receipt, int line, StringBuilder out) {
+            Cart cart = receipt.getCart();
+            for (int i = 0; i < cart.size(); i++) {
+                for (Segment segment : segments) {
+                    segment.render(receipt, i, out);
+                }
+            }
+        }
+    }
+
+    private static class FieldSegment extends Segment {
+        private final Field field;
+        private final int width;
+        private final boolean rightAligned;
+
+        FieldSegment(Field field, int width, boolean rightAligned) {
+            this.field = field;
+            this.width = width;
+            this.rightAligned = rightAligned;
+        }
+
+        @Override
+        void render(ReceiptPrinter receipt, int line, StringBuilder out) {
+            int start = out.length();
+            if (field.text) {
+                appendText(textOf(receipt, line), out);
+            } else {
+                appendValue(receipt, line, out);
+            }
+            int padding = width - (out.length() - start);
+            if (padding > 0) {
+                if (rightAligned) {
+                    out.insert(start, SPACES, 0, padding); // Shifts only this field's few chars
+                } else {
+                    out.append(SPACES, 0, padding);
+                }
+            }
+        }
+
+        private String textOf(ReceiptPrinter receipt, int line) {
+            return field == Field.ITEM_NAME ? receipt.getCart().getProduct(line).getName() : receipt.getReceiptNumber();
+        }
+
+        private void appendText(String text, StringBuilder out) {
+            if (width > 3 && text.length() > width) {
+                out.append(text, 0, width - 3).append("...");
+            } else {
+                out.append(text);
+            }
+        }
+
+        private void appendValue(ReceiptPrinter receipt, int line, StringBuilder out) {
+            Cart cart = receipt.getCart();
+            switch (field) {
+                case DATE:
+                    appendDateTime(receipt.getSaleDateTime(), out);
+                    break;
+                case TOTAL_ITEMS:
+                    out.append(cart.getTotalQuantity());
+                    break;
+                case TOTAL:
+                    appendMoney(Math.round(receipt.getTotalAmount() * 100), out);
+                    break;
+                case RECEIVED:
+                    appendMoney(Math.round(receipt.getReceivedAmount() * 100), out);
+                    break;
+                case CHANGE:
+                    appendMoney(Math.round(receipt.getChangeAmount() * 100), out);
+                    break;
+                case ITEM_QTY:
+                    out.append(cart.getQuantity(line));
+                    break;
+                case ITEM_PRICE:
+                    appendMoney(cart.getProduct(line).getPriceSatang(), out);
+                    break;
+                case ITEM_TOTAL:
+                    appendMoney(cart.getLineTotalSatang(line), out);
+                    break;
+                default:
+                    throw new IllegalStateException("Not a value field: " + field);
+            }
+        }
+    }
+
+    // satang as baht with two decimals, e.g. 4550 -> 45.50
+    static void appendMoney(long satang, StringBuilder out) {
+        if (satang < 0) {
+            out.append('-');
+            satang = -satang;
+        }
+        out.append(satang / 100).append('.');
+        long fraction = satang % 100;
+        out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    // dd/MM/yyyy HH:mm:ss
+    static void appendDateTime(LocalDateTime time, StringBuilder out) {
+        appendTwoDigits(time.getDayOfMonth(), out);
+        out.append('/');
+        appendTwoDigits(time.getMonthValue(), out);
+        out.append('/').append(time.getYear()).append(' ');
+        appendTwoDigits(time.getHour(), out);
+        out.append(':');
+        appendTwoDigits(time.getMinute(), out);
+        out.append(':');
+        appendTwoDigits(time.getSecond(), out);
+    }
+
+    private static void appendTwoDigits(int value, StringBuilder out) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
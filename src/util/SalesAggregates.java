@@ -0,0 +1,124 @@
+package util;
+
+import model.Cart;
+import model.Sale;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Running totals for one day of sales, updated in O(items in sale) per sale
+// so summaries never need to re-scan the day's transactions.
+public class SalesAggregates {
+    private static final int HOURS_PER_DAY = 24;
+
+    private final LocalDate date;
+    private int transactionCount;
+    private double totalRevenue;
+    private int totalItems;
+    private TopSellers dailyRanking = new TopSellers(); // Also holds the per-product quantities
+    private final TopSellers[] hourlyRankings = new TopSellers[HOURS_PER_DAY]; // Created on first sale in the hour
+
+    public SalesAggregates(LocalDate date) {
+        this.date = date;
+    }
+
+    public synchronized void add(Sale sale) {
+        transactionCount++;
+        totalRevenue += sale.getTotalAmount();
+
+        int hour = sale.getSaleDateTime().getHour();
+        if (hourlyRankings[hour] == null) {
+            hourlyRankings[hour] = new TopSellers();
+        }
+        TopSellers hourlyRanking = hourlyRankings[hour];
+
+        Cart cart = sale.getCart();
+        for (int i = 0; i < cart.size(); i++) {
+            String productName = cart.getProduct(i).getName();
+            int quantity = cart.getQuantity(i);
+            dailyRanking.add(productName, quantity);
+            hourlyRanking.add(productName, quantity);
+            totalItems += quantity;
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public synchronized int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public synchronized double getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public synchronized int getTotalItems() {
+        return totalItems;
+    }
+
+    public synchronized int getQuantity(String productName) {
+        return dailyRanking.getQuantity(productName);
+    }
+
+    // Copy of the per-product quantities
+    public synchronized Map<String, Integer> getItemQuantities() {
+        Map<String, Integer> copy = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : dailyRanking.top(dailyRanking.size())) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+        return copy;
+    }
+
+    // Best sellers of the day, highest quantity first
+    public synchronized List<Map.Entry<String, Integer>> getTopSellers(int n) {
+        return dailyRanking.top(n);
+    }
+
+    // Best sellers within one hour of the day (0-23)
+    public synchronized List<Map.Entry<String, Integer>> getTopSellers(int hour, int n) {
+        if (hour < 0 || hour >= HOURS_PER_DAY) {
+            throw new IllegalArgumentException("Hour must be 0-23: " + hour);
+        }
+        TopSellers hourlyRanking = hourlyRankings[hour];
+        return hourlyRanking != null ? hourlyRanking.top(n) : new ArrayList<Map.Entry<String, Integer>>();
+    }
+
+    // Adds the totals of another set of sales from the same day, e.g. to combine
+    // the stripes of a SalesRecorder. Quantities that tie keep the order in
+    // which they are merged.
+    public synchronized void addAll(SalesAggregates other) {
+        synchronized (other) { // Always this, then other; other is never merging itself
+            transactionCount += other.transactionCount;
+            totalRevenue += other.totalRevenue;
+            totalItems += other.totalItems;
+            dailyRanking.addAll(other.dailyRanking);
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                if (other.hourlyRankings[hour] != null) {
+                    if (hourlyRankings[hour] == null) {
+                        hourlyRankings[hour] = new TopSellers();
+                    }
+                    hourlyRankings[hour].addAll(other.hourlyRankings[hour]);
+                }
+            }
+        }
+    }
+
+    public synchronized SalesAggregates copy() {
+        SalesAggregates copy = new SalesAggregates(date);
+        copy.transactionCount = transactionCount;
+        copy.totalRevenue = totalRevenue;
+        copy.totalItems = totalItems;
+        copy.dailyRanking = dailyRanking.copy();
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            if (hourlyRankings[hour] != null) {
+                copy.hourlyRankings[hour] = hourlyRankings[hour].copy();
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,286 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Loads recorded sales back from sales_data.
+//
+// Each day is read from its binary journal (daily_sales_yyyy-MM-dd.bin) and
+// from the old Thai text file (daily_sales_yyyy-MM-dd.txt) written before the
+// journal existed; on the upgrade day both hold sales and are merged by time.
+// Date ranges are split across a fork-join pool so month and year reports
+// parse their day files in parallel. loadStore() fills a ColumnarSalesStore
+// straight from the journals, without building Sale objects.
+public class SalesHistoryLoader {
+    private static final String DAILY_SALES_FILE = "daily_sales_";
+    private static final String LEGACY_EXTENSION = ".txt";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final Pattern SALE_HEADER = Pattern.compile("^=== การขาย ณ เวลา (\\d{2}:\\d{2}:\\d{2}) ===$");
+    private static final Pattern ITEM_LINE = Pattern.compile("^\\s*- (.+) จำนวน (\\d+) แก้ว$");
+    private static final Pattern AMOUNT_LINE = Pattern.compile("^(ยอดรวม|เงินที่รับ|เงินทอน): ฿(-?[\\d.]+)$");
+
+    private final String salesDir;
+    private final ForkJoinPool pool;
+    private volatile Map<String, Product> productsByName = Collections.emptyMap();
+    private final Map<String, Integer> unknownIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextUnknownId = new AtomicInteger(-1);
+
+    public SalesHistoryLoader(String salesDir) {
+        this(salesDir, ForkJoinPool.commonPool());
+    }
+
+    public SalesHistoryLoader(String salesDir, ForkJoinPool pool) {
+        this.salesDir = salesDir;
+        this.pool = pool;
+    }
+
+    // The old text files only store product names; the catalog fills in ids and prices
+    public void setProductCatalog(List<Product> products) {
+        Map<String, Product> byName = new HashMap<>();
+        for (Product product : products) {
+            byName.put(product.getName(), product);
+        }
+        this.productsByName = byName;
+    }
+
+    public File getJournalFile(LocalDate date) {
+        return new File(salesDir + File.separator + DAILY_SALES_FILE + date.format(DATE_FORMAT)
+                + SalesJournal.FILE_EXTENSION);
+    }
+
+    public File getLegacyFile(LocalDate date) {
+        return new File(salesDir + File.separator + DAILY_SALES_FILE + date.format(DATE_FORMAT)
+                + LEGACY_EXTENSION);
+    }
+
+    // The day's sales from both files, in time order
+    public List<Sale> loadDay(LocalDate date) throws IOException {
+        List<Sale> sales = new ArrayList<>();
+        File legacyFile = getLegacyFile(date);
+        if (legacyFile.exists()) {
+            sales.addAll(parseLegacyFile(legacyFile, date));
+        }
+        File journalFile = getJournalFile(date);
+        if (journalFile.exists()) {
+            boolean merge = !sales.isEmpty();
+            sales.addAll(SalesJournal.readSales(journalFile));
+            if (merge) {
+                sales.sort(Comparator.comparing(Sale::getSaleDateTime));
+            }
+        }
+        return sales;
+    }
+
+    // All sales from 'from' to 'to' (inclusive) in chronological order.
+    // Days that fail to load are reported and skipped.
+    public List<Sale> loadRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return new ArrayList<>();
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        return pool.invoke(new LoadRangeTask(from, 0, days));
+    }
+
+    private class LoadRangeTask extends RecursiveTask<List<Sale>> {
+        private final LocalDate start;
+        private final int offset;
+        private final int count;
+
+        LoadRangeTask(LocalDate start, int offset, int count) {
+            this.start = start;
+            this.offset = offset;
+            this.count = count;
+        }
+
+        @Override
+        protected List<Sale> compute() {
+            if (count == 1) {
+                LocalDate date = start.plusDays(offset);
+                try {
+                    return loadDay(date);
+                } catch (IOException e) {
+                    System.err.println("Error loading sales for " + date + ": " + e.getMessage());
+                    return new ArrayList<>();
+                }
+            }
+
+            int half = count / 2;
+            LoadRangeTask left = new LoadRangeTask(start, offset, half);
+            LoadRangeTask right = new LoadRangeTask(start, offset + half, count - half);
+            right.fork();
+            List<Sale> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
+    // Columnar copy of every sale from 'from' to 'to' (inclusive), for analytics.
+    // Days that fail to load are reported and skipped.
+    public ColumnarSalesStore loadStore(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return new ColumnarSalesStore();
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        return pool.invoke(new LoadStoreTask(from, 0, days));
+    }
+
+    private class LoadStoreTask extends RecursiveTask<ColumnarSalesStore> {
+        private final LocalDate start;
+        private final int offset;
+        private final int count;
+
+        LoadStoreTask(LocalDate start, int offset, int count) {
+            this.start = start;
+            this.offset = offset;
+            this.count = count;
+        }
+
+        @Override
+        protected ColumnarSalesStore compute() {
+            if (count == 1) {
+                LocalDate date = start.plusDays(offset);
+                ColumnarSalesStore store = new ColumnarSalesStore();
+                try {
+                    File legacyFile = getLegacyFile(date);
+                    if (legacyFile.exists()) {
+                        for (Sale sale : parseLegacyFile(legacyFile, date)) {
+                            store.append(sale);
+                        }
+                    }
+                    store.appendJournal(getJournalFile(date));
+                } catch (IOException e) {
+                    System.err.println("Error loading sales for " + date + ": " + e.getMessage());
+                    return new ColumnarSalesStore();
+                }
+                return store;
+            }
+
+            int half = count / 2;
+            LoadStoreTask left = new LoadStoreTask(start, offset, half);
+            LoadStoreTask right = new LoadStoreTask(start, offset + half, count - half);
+            right.fork();
+            ColumnarSalesStore result = left.compute();
+            result.appendAll(right.join());
+            return result;
+        }
+    }
+
+    private List<Sale> parseLegacyFile(File file, LocalDate date) throws IOException {
+        List<Sale> sales = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            LocalTime time = null;
+            List<String> names = null;
+            List<Integer> quantities = null;
+            double totalAmount = 0;
+            double receivedAmount = 0;
+            double changeAmount = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher header = SALE_HEADER.matcher(line);
+                if (header.matches()) {
+                    time = LocalTime.parse(header.group(1));
+                    names = new ArrayList<>();
+                    quantities = new ArrayList<>();
+                    totalAmount = 0;
+                    receivedAmount = 0;
+                    changeAmount = 0;
+                    continue;
+                }
+                if (names == null) {
+                    continue;
+                }
+
+                Matcher item = ITEM_LINE.matcher(line);
+                if (item.matches()) {
+                    names.add(item.group(1));
+                    quantities.add(Integer.parseInt(item.group(2)));
+                    continue;
+                }
+
+                Matcher amount = AMOUNT_LINE.matcher(line);
+                if (amount.matches()) {
+                    double value = Double.parseDouble(amount.group(2));
+                    if (amount.group(1).equals("ยอดรวม")) {
+                        totalAmount = value;
+                    } else if (amount.group(1).equals("เงินที่รับ")) {
+                        receivedAmount = value;
+                    } else {
+                        changeAmount = value;
+                    }
+                    continue;
+                }
+
+                if (line.startsWith("----")) {
+                    sales.add(new Sale(LocalDateTime.of(date, time), buildCart(names, quantities, totalAmount),
+                            totalAmount, receivedAmount, changeAmount));
+                    names = null;
+                }
+            }
+        } catch (IllegalArgumentException e) { // Bad number or a zero quantity
+            throw new IOException("Invalid sales file " + file + ": " + e.getMessage());
+        }
+        return sales;
+    }
+
+    // The old files only record each sale's total, so prices come from the
+    // catalog. Products no longer in the catalog get a negative id, which marks
+    // them as unknown, and share whatever of the recorded total the known lines
+    // do not account for, so line totals (and revenue by product) still add up
+    // to what was charged, give or take rounding to the satang.
+    private Cart buildCart(List<String> names, List<Integer> quantities, double totalAmount) {
+        long unaccountedSatang = Math.round(totalAmount * 100);
+        int unknownQuantity = 0;
+        for (int i = 0; i < names.size(); i++) {
+            Product product = productsByName.get(names.get(i));
+            if (product != null) {
+                unaccountedSatang -= product.getPriceSatang() * quantities.get(i);
+            } else {
+                unknownQuantity += quantities.get(i);
+            }
+        }
+        long unknownPriceSatang = unknownQuantity > 0 && unaccountedSatang > 0
+                ? Math.round((double) unaccountedSatang / unknownQuantity) : 0;
+
+        Cart cart = new Cart();
+        for (int i = 0; i < names.size(); i++) {
+            Product product = productsByName.get(names.get(i));
+            if (product == null) {
+                product = new Product(unknownId(names.get(i)), names.get(i), unknownPriceSatang / 100.0);
+            }
+            cart.add(product, quantities.get(i));
+        }
+        return cart;
+    }
+
+    private int unknownId(String name) {
+        return unknownIds.computeIfAbsent(name, unknown -> nextUnknownId.getAndDecrement());
+    }
+}
@@ -0,0 +1,375 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only binary journal of one day's sales.
+//
+// File layout: 8-byte header (magic "CJRN", version) followed by records of
+//   int length | int crc32(payload) | payload
+// where payload is
+//   long local epoch second | int nanos | double total | double received | double change
+//   int line count, then per line: int product id | long price satang | int qty | short name length | name UTF-8
+//   then, if the sale has a receipt number: short length | receipt number UTF-8
+// Records without the receipt number (written before it was added) still read.
+//
+// Each sale is a single write on a long-lived channel. append() never forces
+// the channel; the caller decides when sales must be durable and calls sync()
+// (SalesWriter syncs once per drained batch). close() syncs as well.
+//
+// Damage is handled by where it is:
+//  - a torn record at the end of the file (crash mid-write) is dropped on open
+//    and ignored on replay;
+//  - a damaged record or header followed by intact records is never cut off:
+//    on open the file is copied aside as <name>.corrupt-<time> and rewritten
+//    with every intact record, and replay skips the damaged bytes.
+public class SalesJournal implements Closeable {
+    public static final String FILE_EXTENSION = ".bin";
+
+    private static final int MAGIC = 0x434A524E; // "CJRN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_PAYLOAD_SIZE = 8 + 4 + 8 * 3 + 4; // A sale without lines
+    private static final DateTimeFormatter CORRUPT_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final File file;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private boolean dirty;
+
+    // Receives a journal's sales field by field, for loaders that need no Sale objects
+    public interface RecordVisitor {
+        // Start of the next sale, at a local epoch second
+        void sale(long epochSecond);
+
+        // One line of the current sale; the name is UTF-8 in data[nameOffset, nameOffset + nameLength)
+        void line(int productId, long priceSatang, int quantity, byte[] data, int nameOffset, int nameLength);
+    }
+
+    // Where the intact records of a journal are
+    private static class Scan {
+        final List<int[]> records = new ArrayList<>(); // {offset, payload size}
+        int intactLength; // End of the intact part before any damage; 0 if the header is torn
+        int damagedBytes;
+        boolean damagedInMiddle; // Damage with intact records after it, or a bad header
+    }
+
+    public SalesJournal(File file) throws IOException {
+        this.file = file;
+        long length = file.length() > 0 ? recover(file) : 0;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (length < HEADER_SIZE) {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+            length = HEADER_SIZE;
+        } else if (channel.size() > length) {
+            channel.truncate(length);
+        }
+        channel.position(length);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Writes the sale; it is durable after the next sync()
+    public synchronized void append(Sale sale) throws IOException {
+        encode(sale);
+        writeFully(buffer, -1);
+        dirty = true;
+    }
+
+    // Forces every appended record to disk
+    public synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void encode(Sale sale) {
+        Cart cart = sale.getCart();
+        byte[][] names = new byte[cart.size()][];
+        int payloadSize = MIN_PAYLOAD_SIZE;
+        for (int i = 0; i < cart.size(); i++) {
+            names[i] = cart.getProduct(i).getName().getBytes(StandardCharsets.UTF_8);
+            payloadSize += 4 + 8 + 4 + 2 + names[i].length;
+        }
+        byte[] receiptNumber = sale.getReceiptNumber() != null
+                ? sale.getReceiptNumber().getBytes(StandardCharsets.UTF_8) : null;
+        if (receiptNumber != null) {
+            payloadSize += 2 + receiptNumber.length;
+        }
+
+        int recordSize = RECORD_HEADER_SIZE + payloadSize;
+        if (buffer.capacity() < recordSize) {
+            buffer = ByteBuffer.allocate(Math.max(recordSize, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.position(RECORD_HEADER_SIZE);
+
+        LocalDateTime time = sale.getSaleDateTime();
+        buffer.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time.getNano());
+        buffer.putDouble(sale.getTotalAmount());
+        buffer.putDouble(sale.getReceivedAmount());
+        buffer.putDouble(sale.getChangeAmount());
+        buffer.putInt(cart.size());
+        for (int i = 0; i < cart.size(); i++) {
+            Product product = cart.getProduct(i);
+            buffer.putInt(product.getId());
+            buffer.putLong(product.getPriceSatang());
+            buffer.putInt(cart.getQuantity(i));
+            buffer.putShort((short) names[i].length);
+            buffer.put(names[i]);
+        }
+        if (receiptNumber != null) {
+            buffer.putShort((short) receiptNumber.length);
+            buffer.put(receiptNumber);
+        }
+
+        crc.reset();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, payloadSize);
+        buffer.putInt(0, payloadSize);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+    }
+
+    private void writeFully(ByteBuffer source, long position) throws IOException {
+        if (position >= 0) {
+            while (source.hasRemaining()) {
+                position += channel.write(source, position);
+            }
+        } else {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    // Every intact sale in the file, in order; damaged bytes are skipped
+    public static List<Sale> readSales(File file) throws IOException {
+        List<Sale> sales = new ArrayList<>();
+        if (!file.exists()) {
+            return sales;
+        }
+        ByteBuffer data = readAll(file);
+        Scan scan = scan(data);
+        if (scan.damagedInMiddle) {
+            System.err.println("Skipped " + scan.damagedBytes + " damaged bytes in sales journal " + file);
+        }
+        for (int[] record : scan.records) {
+            data.position(record[0] + RECORD_HEADER_SIZE);
+            sales.add(decode(data, record[0] + RECORD_HEADER_SIZE + record[1]));
+        }
+        return sales;
+    }
+
+    // Passes every intact sale in the file to the visitor, in order, straight
+    // from the file's bytes; damaged bytes are skipped
+    public static void visitRecords(File file, RecordVisitor visitor) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        ByteBuffer data = readAll(file);
+        Scan scan = scan(data);
+        if (scan.damagedInMiddle) {
+            System.err.println("Skipped " + scan.damagedBytes + " damaged bytes in sales journal " + file);
+        }
+        byte[] bytes = data.array();
+        for (int[] record : scan.records) {
+            int position = record[0] + RECORD_HEADER_SIZE;
+            visitor.sale(data.getLong(position));
+            int lineCount = data.getInt(position + MIN_PAYLOAD_SIZE - 4);
+            position += MIN_PAYLOAD_SIZE;
+            for (int i = 0; i < lineCount; i++) {
+                int nameLength = data.getShort(position + 16) & 0xFFFF;
+                visitor.line(data.getInt(position), data.getLong(position + 4), data.getInt(position + 12),
+                        bytes, position + 18, nameLength);
+                position += 18 + nameLength;
+            }
+        }
+    }
+
+    // Repairs the file for appending and returns the length to append at.
+    // A torn tail is cut off; other damage makes a copy of the file and
+    // rewrites it with the intact records.
+    private static long recover(File file) throws IOException {
+        ByteBuffer data = readAll(file);
+        Scan scan = scan(data);
+        if (!scan.damagedInMiddle) {
+            if (scan.damagedBytes > 0) {
+                System.err.println("Dropped an incomplete record of " + scan.damagedBytes
+                        + " bytes at the end of sales journal " + file);
+            }
+            return scan.intactLength;
+        }
+
+        File copy = new File(file.getPath() + ".corrupt-" + LocalDateTime.now().format(CORRUPT_SUFFIX_FORMAT));
+        int length = HEADER_SIZE;
+        for (int[] record : scan.records) {
+            length += RECORD_HEADER_SIZE + record[1];
+        }
+        ByteBuffer rebuilt = ByteBuffer.allocate(length);
+        rebuilt.putInt(MAGIC).putInt(VERSION);
+        for (int[] record : scan.records) {
+            rebuilt.put(data.array(), record[0], RECORD_HEADER_SIZE + record[1]);
+        }
+        rebuilt.flip();
+
+        // The original stays in place until the rewritten file atomically replaces it
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (rebuilt.hasRemaining()) {
+                out.write(rebuilt);
+            }
+            out.force(true);
+        }
+        Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        System.err.println("Sales journal " + file + " had " + scan.damagedBytes + " damaged bytes; kept "
+                + scan.records.size() + " intact sales and saved the original as " + copy);
+        return length;
+    }
+
+    private static Scan scan(ByteBuffer data) {
+        Scan scan = new Scan();
+        int limit = data.limit();
+        if (limit < HEADER_SIZE) {
+            scan.damagedBytes = limit; // Crashed while writing the header
+            return scan;
+        }
+        CRC32 crc = new CRC32();
+        boolean damaged = !hasHeader(data);
+        scan.damagedInMiddle = damaged;
+        scan.damagedBytes = damaged ? HEADER_SIZE : 0;
+        scan.intactLength = damaged ? 0 : HEADER_SIZE;
+        int position = HEADER_SIZE;
+        while (position < limit) {
+            int payloadSize = recordLength(data, position, crc);
+            if (payloadSize >= 0) {
+                scan.records.add(new int[] { position, payloadSize });
+                position += RECORD_HEADER_SIZE + payloadSize;
+                if (!damaged) {
+                    scan.intactLength = position;
+                }
+                continue;
+            }
+            // Resynchronize on the next intact record; without one this is a torn tail
+            int next = nextRecord(data, position + 1, crc);
+            if (next < 0) {
+                scan.damagedBytes += limit - position;
+                break;
+            }
+            damaged = true;
+            scan.damagedInMiddle = true;
+            scan.damagedBytes += next - position;
+            position = next;
+        }
+        return scan;
+    }
+
+    // Offset of the first intact record at or after from, or -1
+    private static int nextRecord(ByteBuffer data, int from, CRC32 crc) {
+        for (int position = from; position <= data.limit() - RECORD_HEADER_SIZE - MIN_PAYLOAD_SIZE; position++) {
+            if (recordLength(data, position, crc) >= 0) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // Payload size of the record at position, or -1 if it is missing or damaged
+    private static int recordLength(ByteBuffer data, int position, CRC32 crc) {
+        if (data.limit() - position < RECORD_HEADER_SIZE) {
+            return -1;
+        }
+        int payloadSize = data.getInt(position);
+        int checksum = data.getInt(position + 4);
+        if (payloadSize < MIN_PAYLOAD_SIZE || payloadSize > data.limit() - position - RECORD_HEADER_SIZE) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(data.array(), position + RECORD_HEADER_SIZE, payloadSize);
+        if ((int) crc.getValue() != checksum) {
+            return -1;
+        }
+        return payloadSize;
+    }
+
+    // end is where the record's payload ends
+    private static Sale decode(ByteBuffer data, int end) {
+        long epochSecond = data.getLong();
+        int nanos = data.getInt();
+        double totalAmount = data.getDouble();
+        double receivedAmount = data.getDouble();
+        double changeAmount = data.getDouble();
+        int lineCount = data.getInt();
+
+        Cart cart = new Cart();
+        for (int i = 0; i < lineCount; i++) {
+            int productId = data.getInt();
+            long priceSatang = data.getLong();
+            int quantity = data.getInt();
+            byte[] name = new byte[data.getShort() & 0xFFFF];
+            data.get(name);
+            cart.add(new Product(productId, new String(name, StandardCharsets.UTF_8), priceSatang / 100.0),
+                    quantity);
+        }
+
+        String receiptNumber = null;
+        if (data.position() < end) {
+            byte[] number = new byte[data.getShort() & 0xFFFF];
+            data.get(number);
+            receiptNumber = new String(number, StandardCharsets.UTF_8);
+        }
+
+        LocalDateTime time = LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+        return new Sale(time, cart, totalAmount, receivedAmount, changeAmount, receiptNumber);
+    }
+
+    private static boolean hasHeader(ByteBuffer data) {
+        return data.limit() >= HEADER_SIZE && data.getInt(0) == MAGIC && data.getInt(4) == VERSION;
+    }
+
+    private static ByteBuffer readAll(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package util;
+
+import model.Cart;
+import model.Sale;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// One day of sales recorded concurrently by several tills.
+//
+// Sales go into one of a set of stripes, picked by the till (terminal id) that
+// recorded them: each till appends to its own buffer and aggregates under its
+// own lock, whichever thread it runs on, so checkouts on different tills never
+// wait for each other. Tills get stripes in the order they first record, so
+// they only share one when there are more tills than stripes. Sales without a
+// terminal (e.g. replayed from the journal) go to the first stripe.
+// Two ways to read:
+//  - live counters (transactions, revenue, items, per product) are LongAdders
+//    updated on every sale; reading them never blocks a checkout but a reader
+//    may see one sale's revenue before its transaction count;
+//  - snapshot() locks every stripe in order for as long as it takes to copy
+//    them, so its sales and totals always describe the same set of sales.
+public class SalesRecorder {
+    private final LocalDate date;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final ConcurrentHashMap<String, Integer> stripeByTerminal = new ConcurrentHashMap<>();
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder revenueSatang = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> productQuantities = new ConcurrentHashMap<>();
+
+    private static class Stripe {
+        final List<Sale> sales = new ArrayList<>();
+        final SalesAggregates aggregates;
+
+        Stripe(LocalDate date) {
+            this.aggregates = new SalesAggregates(date);
+        }
+    }
+
+    // Consistent copy of the recorder at one moment
+    public static class Snapshot {
+        private final List<Sale> sales;
+        private final SalesAggregates aggregates;
+
+        Snapshot(List<Sale> sales, SalesAggregates aggregates) {
+            this.sales = sales;
+            this.aggregates = aggregates;
+        }
+
+        // The day's sales in time order
+        public List<Sale> getSales() {
+            return sales;
+        }
+
+        public SalesAggregates getAggregates() {
+            return aggregates;
+        }
+    }
+
+    public SalesRecorder(LocalDate date) {
+        this(date, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public SalesRecorder(LocalDate date, int minStripes) {
+        int count = 1;
+        while (count < minStripes) {
+            count <<= 1;
+        }
+        this.date = date;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(date);
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void record(Sale sale) {
+        record(null, sale);
+    }
+
+    // terminalId is the till that made the sale, or null
+    public void record(String terminalId, Sale sale) {
+        Stripe stripe = stripes[stripeIndex(terminalId)];
+        synchronized (stripe) {
+            stripe.sales.add(sale);
+            stripe.aggregates.add(sale);
+        }
+
+        transactions.increment();
+        revenueSatang.add(Math.round(sale.getTotalAmount() * 100));
+        Cart cart = sale.getCart();
+        for (int i = 0; i < cart.size(); i++) {
+            String productName = cart.getProduct(i).getName();
+            LongAdder quantity = productQuantities.get(productName);
+            if (quantity == null) {
+                quantity = productQuantities.computeIfAbsent(productName, name -> new LongAdder());
+            }
+            quantity.add(cart.getQuantity(i));
+            items.add(cart.getQuantity(i));
+        }
+    }
+
+    public long getTransactionCount() {
+        return transactions.sum();
+    }
+
+    public long getRevenueSatang() {
+        return revenueSatang.sum();
+    }
+
+    public long getItemCount() {
+        return items.sum();
+    }
+
+    public long getProductQuantity(String productName) {
+        LongAdder quantity = productQuantities.get(productName);
+        return quantity != null ? quantity.sum() : 0;
+    }
+
+    // Live quantity sold per product
+    public Map<String, Long> getProductQuantities() {
+        Map<String, Long> copy = new HashMap<>(productQuantities.size() * 2);
+        for (Map.Entry<String, LongAdder> entry : productQuantities.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().sum());
+        }
+        return copy;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot(true);
+    }
+
+    // Totals and rankings only, without copying the sales list
+    public SalesAggregates snapshotAggregates() {
+        return snapshot(false).getAggregates();
+    }
+
+    private Snapshot snapshot(boolean withSales) {
+        List<Sale> sales = new ArrayList<>();
+        SalesAggregates aggregates = new SalesAggregates(date);
+        lockAndCopy(0, withSales ? sales : null, aggregates);
+        if (withSales && stripes.length > 1) {
+            sales.sort(Comparator.comparing(Sale::getSaleDateTime)); // Stable: one till keeps its order
+        }
+        return new Snapshot(sales, aggregates);
+    }
+
+    // Holds the locks of stripes [0, index) while copying the rest, so every
+    // stripe is copied at the same moment
+    private void lockAndCopy(int index, List<Sale> sales, SalesAggregates aggregates) {
+        if (index == stripes.length) {
+            for (Stripe stripe : stripes) {
+                if (sales != null) {
+                    sales.addAll(stripe.sales);
+                }
+                aggregates.addAll(stripe.aggregates);
+            }
+            return;
+        }
+        synchronized (stripes[index]) {
+            lockAndCopy(index + 1, sales, aggregates);
+        }
+    }
+
+    // A given till always uses the same stripe
+    private int stripeIndex(String terminalId) {
+        if (terminalId == null) {
+            return 0;
+        }
+        Integer index = stripeByTerminal.get(terminalId);
+        if (index == null) {
+            index = stripeByTerminal.computeIfAbsent(terminalId,
+                    terminal -> nextStripe.getAndIncrement() & stripeMask);
+        }
+        return index;
+    }
+}
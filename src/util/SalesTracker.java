@@ -1,23 +1,64 @@
 package util;
 
 import model.Sale;
-import model.CartItem;
+import model.Cart;
+import model.Product;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SalesTracker {
     private static final String SALES_DIR = "sales_data";
-    private static final String DAILY_SALES_FILE = "daily_sales_";
     private static final String SALES_SUMMARY_FILE = "sales_summary_";
-    private List<Sale> todaysSales;
+    private static final long SUMMARY_DEBOUNCE_SECONDS = 5;
+    private static final LatencyHistogram RECORD_LATENCY = LatencyHistogram.named("sales.record");
+    private static final LatencyHistogram SUMMARY_LATENCY = LatencyHistogram.named("sales.summary");
+    private final String salesDir;
+    private final Clock clock;
+    private volatile SalesRecorder todaysSales; // Replaced under rolloverLock when the day changes
+    private final Object rolloverLock = new Object();
+    private final ScheduledExecutorService summaryScheduler;
+    private final AtomicBoolean summaryScheduled = new AtomicBoolean();
+    private volatile ScheduledFuture<?> pendingSummary;
+    private final Object summaryLock = new Object(); // Serializes summary file writes
+    private final SalesWriter salesWriter;
+    private final SalesHistoryLoader historyLoader;
 
     public SalesTracker() {
-        this.todaysSales = new ArrayList<>();
+        this(SALES_DIR);
+    }
+
+    public SalesTracker(String salesDir) {
+        this(salesDir, Clock.systemDefaultZone());
+    }
+
+    // The clock decides what "today" is, e.g. a fixed clock in tests
+    SalesTracker(String salesDir, Clock clock) {
+        this.salesDir = salesDir;
+        this.clock = clock;
+        this.historyLoader = new SalesHistoryLoader(salesDir);
+        this.todaysSales = new SalesRecorder(LocalDate.now(clock));
+        this.summaryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sales-summary-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
         createSalesDirectory();
+        loadTodaysJournal();
+        this.salesWriter = new SalesWriter(this::getJournalFile, SalesWriter.DEFAULT_CAPACITY, clock);
+        flush(); // Waits for the writer to open today's journal, so getPersistenceFailure() is current
     }
 
     private String repeat(String str, int count) {
@@ -28,56 +69,217 @@ public class SalesTracker {
         return result.toString();
     }
 
+    // Sales recorded earlier today (before a restart) are replayed from the journal
+    private void loadTodaysJournal() {
+        try {
+            for (Sale sale : SalesJournal.readSales(getJournalFile(LocalDate.now(clock)))) {
+                todaysSales.record(sale);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading today's sales journal: " + e.getMessage());
+        }
+    }
+
     private void createSalesDirectory() {
-        File salesDir = new File(SALES_DIR);
-        if (!salesDir.exists()) {
-            salesDir.mkdirs();
+        File dir = new File(salesDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
     }
 
-    public void recordSale(HashMap<Integer, CartItem> cartItems, double totalAmount, double receivedAmount,
-            double changeAmount) {
-        Sale sale = new Sale(cartItems, totalAmount, receivedAmount, changeAmount);
-        todaysSales.add(sale);
-        saveSaleToFile(sale);
+    public Sale recordSale(Cart cart, double totalAmount, double receivedAmount, double changeAmount) {
+        return recordSale(cart, totalAmount, receivedAmount, changeAmount, null, null);
     }
 
-    private void saveSaleToFile(Sale sale) {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        String filename = SALES_DIR + File.separator + DAILY_SALES_FILE + today + ".txt";
+    // Safe to call from several tills at once, each with its own terminalId;
+    // see SalesRecorder. Blocks only while the writer's queue is full.
+    // Throws IllegalStateException, without recording anything, once sales
+    // can no longer be saved (see getPersistenceFailure()).
+    public Sale recordSale(Cart cart, double totalAmount, double receivedAmount,
+            double changeAmount, String receiptNumber, String terminalId) {
+        long start = System.nanoTime();
+        Sale sale = new Sale(LocalDateTime.now(clock), cart, totalAmount, receivedAmount, changeAmount,
+                receiptNumber);
+        salesWriter.submit(sale); // Persisted on the writer thread, never blocks on disk I/O
+        LocalDate saleDate = sale.getSaleDateTime().toLocalDate();
+        SalesRecorder recorder = salesRecorderFor(saleDate);
+        if (saleDate.equals(recorder.getDate())) {
+            recorder.record(terminalId, sale);
+            scheduleSummaryWrite();
+        } else {
+            // Timed before midnight but arrived after the rollover: it belongs to
+            // its own day, which is no longer in memory
+            rewriteSummaryFromJournal(saleDate);
+        }
+        RECORD_LATENCY.recordSince(start);
+        return sale;
+    }
 
-        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(filename, true), StandardCharsets.UTF_8))) {
-            writer.println("=== การขาย ณ เวลา " + sale.getFormattedTime() + " ===");
-            writer.println("รายการสินค้า:");
+    // Today's recorder. After midnight the first read or sale starts a new one,
+    // so a till left running overnight never reports yesterday as today.
+    private SalesRecorder currentRecorder() {
+        return salesRecorderFor(LocalDate.now(clock));
+    }
 
-            for (Map.Entry<String, Integer> entry : sale.getItems().entrySet()) {
-                writer.println("  - " + entry.getKey() + " จำนวน " + entry.getValue() + " แก้ว");
+    // Today's recorder, first rolling over to saleDate if that is later. An
+    // earlier saleDate gets today's recorder back; the caller must not record
+    // the sale there.
+    private SalesRecorder salesRecorderFor(LocalDate saleDate) {
+        SalesRecorder recorder = todaysSales;
+        if (!saleDate.isAfter(recorder.getDate())) {
+            return recorder;
+        }
+        synchronized (rolloverLock) {
+            recorder = todaysSales;
+            if (saleDate.isAfter(recorder.getDate())) {
+                // The finished day's summary comes from its journal, which also has
+                // any sale still being recorded into the old recorder right now
+                rewriteSummaryFromJournal(recorder.getDate());
+                recorder = new SalesRecorder(saleDate);
+                todaysSales = recorder;
             }
+            return recorder;
+        }
+    }
 
-            writer.println("ยอดรวม: ฿" + String.format("%.2f", sale.getTotalAmount()));
-            writer.println("เงินที่รับ: ฿" + String.format("%.2f", sale.getReceivedAmount()));
-            writer.println("เงินทอน: ฿" + String.format("%.2f", sale.getChangeAmount()));
-            writer.println("------------------------------------------------");
-            writer.println();
+    // Rewrites a past day's summary on the summary thread once every sale
+    // submitted so far is in the journal
+    private void rewriteSummaryFromJournal(LocalDate date) {
+        try {
+            summaryScheduler.execute(() -> {
+                flush();
+                generateDailySummary(date);
+            });
+        } catch (RejectedExecutionException e) {
+            System.err.println("Sales summary for " + date + " not rewritten: tracker is closed");
+        }
+    }
 
-        } catch (IOException e) {
-            System.err.println("Error saving sale to file: " + e.getMessage());
+    // Coalesces summary rewrites: at most one write per debounce window
+    private void scheduleSummaryWrite() {
+        if (summaryScheduled.compareAndSet(false, true)) {
+            pendingSummary = summaryScheduler.schedule(() -> {
+                summaryScheduled.set(false);
+                generateDailySummary();
+            }, SUMMARY_DEBOUNCE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    // Rewrites today's summary file on the summary thread now, without waiting
+    // for the debounce; the future completes once the file is written
+    public CompletableFuture<Void> requestDailySummary() {
+        return CompletableFuture.runAsync(this::generateDailySummary, summaryScheduler);
+    }
+
+    // Consistent copy of today's running totals
+    public SalesAggregates getTodaysAggregates() {
+        return currentRecorder().snapshotAggregates();
+    }
+
+    // Live counters of today's sales, readable without blocking checkouts
+    public SalesRecorder getTodaysRecorder() {
+        return currentRecorder();
+    }
+
+    // Waits until every recorded sale is written and synced to disk
+    public void flush() {
+        try {
+            if (!salesWriter.flush(10, TimeUnit.SECONDS)) {
+                System.err.println("Timed out flushing sales journal: " + salesWriter);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Writes out pending sales and the summary, then stops the background threads
+    public synchronized void close() {
+        ScheduledFuture<?> pending = pendingSummary;
+        if (pending != null && pending.cancel(false)) {
+            generateDailySummary();
+        }
+        summaryScheduler.shutdown();
+        try {
+            // Past days' summaries may still be queued; they need the writer running
+            if (!summaryScheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Sales summaries not finished at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        salesWriter.shutdown();
+    }
+
+    // Why sales cannot be saved, or null while the journal is writable
+    public IOException getPersistenceFailure() {
+        return salesWriter.getFailure();
+    }
+
+    // Queue depth, batching and back-pressure counters of the persistence pipeline
+    public SalesWriter getSalesWriter() {
+        return salesWriter;
+    }
+
+    private File getJournalFile(LocalDate date) {
+        return historyLoader.getJournalFile(date);
+    }
+
+    // Human-readable listing of a day's sales, replayed from the journal
+    public String formatSalesDetails(LocalDate date) {
+        StringBuilder details = new StringBuilder();
+        for (Sale sale : loadSalesFromDate(date)) {
+            details.append("=== การขาย ณ เวลา ").append(sale.getFormattedTime()).append(" ===\n");
+            if (sale.getReceiptNumber() != null) {
+                details.append("เลขที่ใบเสร็จ: ").append(sale.getReceiptNumber()).append("\n");
+            }
+            details.append("รายการสินค้า:\n");
+
+            for (Map.Entry<String, Integer> entry : sale.getItems().entrySet()) {
+                details.append("  - ").append(entry.getKey()).append(" จำนวน ").append(entry.getValue())
+                        .append(" แก้ว\n");
+            }
+
+            details.append("ยอดรวม: ฿").append(String.format("%.2f", sale.getTotalAmount())).append("\n");
+            details.append("เงินที่รับ: ฿").append(String.format("%.2f", sale.getReceivedAmount())).append("\n");
+            details.append("เงินทอน: ฿").append(String.format("%.2f", sale.getChangeAmount())).append("\n");
+            details.append("------------------------------------------------\n");
+            details.append("\n");
+        }
+        return details.toString();
     }
 
     public void generateDailySummary() {
-        generateDailySummary(LocalDate.now());
+        generateDailySummary(LocalDate.now(clock));
     }
 
     public void generateDailySummary(LocalDate date) {
-        String dateStr = date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        String salesFile = SALES_DIR + File.separator + DAILY_SALES_FILE + dateStr + ".txt";
-        String summaryFile = SALES_DIR + File.separator + SALES_SUMMARY_FILE + dateStr + ".txt";
+        SalesRecorder recorder = currentRecorder();
+        if (date.equals(recorder.getDate())) {
+            // Today's totals are maintained incrementally by recordSale
+            writeSummary(recorder.snapshotAggregates());
+            return;
+        }
+
+        SalesAggregates aggregates = new SalesAggregates(date);
+        for (Sale sale : loadSalesFromDate(date)) {
+            aggregates.add(sale);
+        }
+        writeSummary(aggregates);
+    }
 
-        // Check if sales file exists
-        File salesFileObj = new File(salesFile);
-        if (!salesFileObj.exists()) {
+    private void writeSummary(SalesAggregates aggregates) {
+        synchronized (summaryLock) {
+            long start = System.nanoTime();
+            writeSummaryFile(aggregates);
+            SUMMARY_LATENCY.recordSince(start);
+        }
+    }
+
+    private void writeSummaryFile(SalesAggregates aggregates) {
+        String dateStr = aggregates.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String summaryFile = salesDir + File.separator + SALES_SUMMARY_FILE + dateStr + ".txt";
+
+        if (aggregates.getTransactionCount() == 0) {
             // Create empty summary for days with no sales
             try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
                     new FileOutputStream(summaryFile), StandardCharsets.UTF_8))) {
@@ -92,19 +294,10 @@ public class SalesTracker {
             return;
         }
 
-        // Load today's sales and generate summary
-        List<Sale> salesList = loadSalesFromDate(date);
-        Map<String, Integer> itemSummary = new HashMap<>();
-        double totalRevenue = 0.0;
-        int totalTransactions = salesList.size();
-
-        // Calculate summary data
-        for (Sale sale : salesList) {
-            totalRevenue += sale.getTotalAmount();
-            for (Map.Entry<String, Integer> entry : sale.getItems().entrySet()) {
-                itemSummary.merge(entry.getKey(), entry.getValue(), Integer::sum);
-            }
-        }
+        // Already ordered by quantity sold (descending)
+        List<Map.Entry<String, Integer>> itemSummary = aggregates.getTopSellers(Integer.MAX_VALUE);
+        double totalRevenue = aggregates.getTotalRevenue();
+        int totalTransactions = aggregates.getTransactionCount();
 
         // Write summary to file
         try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
@@ -129,15 +322,12 @@ public class SalesTracker {
             if (itemSummary.isEmpty()) {
                 writer.println("  ไม่มีสินค้าที่ขายได้ในวันนี้");
             } else {
-                // Sort items by quantity sold (descending)
-                itemSummary.entrySet().stream()
-                        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                        .forEach(entry -> {
-                            writer.println(String.format("  %-25s %3d แก้ว", entry.getKey(), entry.getValue()));
-                        });
+                for (Map.Entry<String, Integer> entry : itemSummary) {
+                    writer.println(String.format("  %-25s %3d แก้ว", entry.getKey(), entry.getValue()));
+                }
 
                 writer.println(repeat("-", 40));
-                int totalItems = itemSummary.values().stream().mapToInt(Integer::intValue).sum();
+                int totalItems = aggregates.getTotalItems();
                 writer.println(String.format("  %-25s %3d แก้ว", "รวมทั้งหมด:", totalItems));
             }
 
@@ -145,16 +335,13 @@ public class SalesTracker {
             writer.println("🏆 สินค้าขายดี TOP 3:");
             writer.println(repeat("-", 30));
 
-            itemSummary.entrySet().stream()
-                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                    .limit(3)
-                    .forEach(entry -> {
-                        writer.println("  " + entry.getKey() + " (" + entry.getValue() + " แก้ว)");
-                    });
+            for (Map.Entry<String, Integer> entry : itemSummary.subList(0, Math.min(3, itemSummary.size()))) {
+                writer.println("  " + entry.getKey() + " (" + entry.getValue() + " แก้ว)");
+            }
 
             writer.println();
             writer.println(repeat("=", 50));
-            writer.println("📄 รายงานสร้างเมื่อ: " + java.time.LocalDateTime.now()
+            writer.println("📄 รายงานสร้างเมื่อ: " + LocalDateTime.now(clock)
                     .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
         } catch (IOException e) {
@@ -162,35 +349,74 @@ public class SalesTracker {
         }
     }
 
-    private List<Sale> loadSalesFromDate(LocalDate date) {
-        List<Sale> sales = new ArrayList<>();
-        String dateStr = date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-
-        if (date.equals(LocalDate.now())) {
+    public List<Sale> loadSalesFromDate(LocalDate date) {
+        SalesRecorder recorder = currentRecorder();
+        if (date.equals(recorder.getDate())) {
             // Return today's in-memory sales
-            return new ArrayList<>(todaysSales);
+            return recorder.snapshot().getSales();
         }
 
-        // For other dates, we would need to parse from file
-        // For now, return empty list for past dates
+        // For other dates, replay the day's journal (or parse an old text file)
+        try {
+            return historyLoader.loadDay(date);
+        } catch (IOException e) {
+            System.err.println("Error loading sales for " + date + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // Sales between two dates (inclusive), with past days parsed in parallel.
+    // Today's sales come from memory since the journal may still be catching up.
+    public List<Sale> loadSalesInRange(LocalDate from, LocalDate to) {
+        SalesRecorder todaysRecorder = currentRecorder();
+        LocalDate today = todaysRecorder.getDate();
+        if (to.isBefore(today)) {
+            return historyLoader.loadRange(from, to);
+        }
+        List<Sale> sales = historyLoader.loadRange(from, today.minusDays(1));
+        if (!from.isAfter(today)) {
+            sales.addAll(todaysRecorder.snapshot().getSales());
+        }
         return sales;
     }
 
+    // Columnar copy of a date range for analytics (sums by product, hour or day).
+    // Past days are read straight from their journals; today's sales from memory.
+    public ColumnarSalesStore loadSalesStore(LocalDate from, LocalDate to) {
+        SalesRecorder todaysRecorder = currentRecorder();
+        LocalDate today = todaysRecorder.getDate();
+        if (to.isBefore(today)) {
+            return historyLoader.loadStore(from, to);
+        }
+        ColumnarSalesStore store = historyLoader.loadStore(from, today.minusDays(1));
+        if (!from.isAfter(today)) {
+            for (Sale sale : todaysRecorder.snapshot().getSales()) {
+                store.append(sale);
+            }
+        }
+        return store;
+    }
+
+    public void setProductCatalog(List<Product> products) {
+        historyLoader.setProductCatalog(products);
+    }
+
     public List<Sale> getTodaysSales() {
-        return new ArrayList<>(todaysSales);
+        return currentRecorder().snapshot().getSales();
     }
 
     public String getDailySummaryFilePath() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return SALES_DIR + File.separator + SALES_SUMMARY_FILE + today + ".txt";
+        String today = LocalDate.now(clock).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        return salesDir + File.separator + SALES_SUMMARY_FILE + today + ".txt";
     }
 
     public String getDailySalesFilePath() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return SALES_DIR + File.separator + DAILY_SALES_FILE + today + ".txt";
+        return getJournalFile(LocalDate.now(clock)).getPath();
     }
 
     public void clearTodaysSales() {
-        todaysSales.clear();
+        synchronized (rolloverLock) {
+            todaysSales = new SalesRecorder(LocalDate.now(clock));
+        }
     }
 }
\ No newline at end of file
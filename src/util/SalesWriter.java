@@ -0,0 +1,338 @@
+package util;
+
+import model.Sale;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// Background writer that persists sales to the daily journal off the caller's
+// thread (normally the Swing EDT).
+//
+// Sales go through a bounded queue. The writer drains whatever is queued as one
+// batch, appends it, and fsyncs once the queue is empty, so under load many
+// sales share one fsync. When the queue is full, submit() blocks (back-pressure)
+// and the time spent blocked is counted in the metrics.
+//
+// The writer opens today's journal as soon as it starts. If that or any later
+// write fails, the failure is kept and every later submit() throws, so a till
+// whose sales cannot be saved stops selling instead of losing them quietly.
+// A sale that cannot be written for any other reason (a bug, a malformed sale)
+// is logged and counted as failed; the writer keeps going with the next one.
+public class SalesWriter {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH = 256;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final LatencyHistogram SYNC_LATENCY = LatencyHistogram.named("sales.fsync");
+
+    private final Function<LocalDate, File> journalFiles;
+    private final Clock clock;
+    private final BlockingQueue<Task> queue;
+    private final Thread thread;
+    // Submitters hold the read lock from the shutdown check until the sale is
+    // queued; shutdown() takes the write lock to set the flag, so its marker is
+    // queued behind every accepted sale and none can land after the final drain
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private volatile boolean shutdown;
+    private volatile IOException failure; // First persistence failure; sticky
+
+    // Writer-thread state
+    private SalesJournal journal;
+    private LocalDate journalDate;
+
+    // Back-pressure metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong blockedSubmits = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private static class Task {
+        final Sale sale; // null for flush/shutdown markers
+        final CountDownLatch done;
+        final boolean stop;
+
+        Task(Sale sale, CountDownLatch done, boolean stop) {
+            this.sale = sale;
+            this.done = done;
+            this.stop = stop;
+        }
+    }
+
+    public SalesWriter(Function<LocalDate, File> journalFiles) {
+        this(journalFiles, DEFAULT_CAPACITY, Clock.systemDefaultZone());
+    }
+
+    public SalesWriter(Function<LocalDate, File> journalFiles, int capacity) {
+        this(journalFiles, capacity, Clock.systemDefaultZone());
+    }
+
+    // The clock decides which day's journal is opened at start
+    public SalesWriter(Function<LocalDate, File> journalFiles, int capacity, Clock clock) {
+        this.journalFiles = journalFiles;
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "sales-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Queues a sale for persistence. Blocks only if the queue is full.
+    // Throws IllegalStateException once sales can no longer be saved.
+    public void submit(Sale sale) {
+        shutdownLock.readLock().lock();
+        try {
+            if (shutdown) {
+                throw new IllegalStateException("Sales writer is shut down");
+            }
+            checkWritable();
+            submitted.incrementAndGet();
+            enqueue(new Task(sale, null, false));
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    // Throws IllegalStateException if an earlier sale could not be saved
+    public void checkWritable() {
+        IOException error = failure;
+        if (error != null) {
+            throw new IllegalStateException("Sales cannot be saved: " + error.getMessage(), error);
+        }
+    }
+
+    // The first error that stopped sales from being saved, or null
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // Waits until every sale submitted so far is written and synced to disk
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        boolean queued = false;
+        shutdownLock.readLock().lock();
+        try {
+            if (!shutdown) {
+                enqueue(new Task(null, done, false));
+                queued = true;
+            }
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+        if (!queued) {
+            // A marker behind the final drain would never run; wait for the drain instead
+            thread.join(unit.toMillis(timeout));
+            return !thread.isAlive();
+        }
+        return done.await(timeout, unit);
+    }
+
+    // Writes out everything queued, closes the journal and stops the thread
+    public void shutdown() {
+        shutdownLock.writeLock().lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        enqueue(new Task(null, done, true));
+        try {
+            if (!done.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Sales writer did not finish within " + SHUTDOWN_TIMEOUT_SECONDS + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Task task) {
+        if (!queue.offer(task)) {
+            blockedSubmits.incrementAndGet();
+            long start = System.nanoTime();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(task);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true; // Never drop a sale; restore the flag afterwards
+                }
+            }
+            blockedNanos.addAndGet(System.nanoTime() - start);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    private void run() {
+        openJournal(LocalDate.now(clock)); // Reports a damaged or unwritable journal before the first sale
+        List<Task> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only shutdown() stops the writer
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            batches.incrementAndGet();
+
+            for (Task task : batch) {
+                if (task.sale != null) {
+                    try {
+                        write(task.sale);
+                    } catch (RuntimeException e) {
+                        // One bad sale must not stop the writer: submitters would block forever
+                        failed.incrementAndGet();
+                        System.err.println("Error saving sale to file: " + e);
+                    }
+                } else {
+                    try {
+                        sync();
+                        if (task.stop) {
+                            closeJournal();
+                        }
+                    } catch (RuntimeException e) {
+                        System.err.println("Error flushing sales journal: " + e);
+                    } finally {
+                        if (task.stop) {
+                            running = false;
+                        }
+                        task.done.countDown();
+                    }
+                }
+            }
+            batch.clear();
+
+            // Group commit: one fsync once the backlog has been written
+            if (running && queue.isEmpty()) {
+                sync();
+            }
+        }
+    }
+
+    private void write(Sale sale) {
+        LocalDate saleDate = sale.getSaleDateTime().toLocalDate();
+        // One long-lived journal per day; roll over at midnight
+        if ((journal == null || !saleDate.equals(journalDate)) && !openJournal(saleDate)) {
+            failed.incrementAndGet();
+            return;
+        }
+        try {
+            journal.append(sale);
+            written.incrementAndGet();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            fail(e);
+            System.err.println("Error saving sale to file: " + e.getMessage());
+        }
+    }
+
+    private boolean openJournal(LocalDate date) {
+        closeJournal();
+        try {
+            journal = new SalesJournal(journalFiles.apply(date));
+            journalDate = date;
+            return true;
+        } catch (IOException e) {
+            fail(e);
+            System.err.println("Error opening sales journal for " + date + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private void sync() {
+        if (journal != null) {
+            try {
+                long start = System.nanoTime();
+                journal.sync();
+                SYNC_LATENCY.recordSince(start);
+            } catch (IOException e) {
+                fail(e);
+                System.err.println("Error flushing sales journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing sales journal: " + e.getMessage());
+            }
+            journal = null;
+            journalDate = null;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getBlockedSubmitCount() {
+        return blockedSubmits.get();
+    }
+
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SalesWriter[queued=%d/%d, maxDepth=%d, submitted=%d, written=%d, failed=%d, "
+                + "batches=%d, blockedSubmits=%d, blockedMs=%d]",
+                getQueueDepth(), getQueueCapacity(), maxQueueDepth.get(), submitted.get(), written.get(),
+                failed.get(), batches.get(), blockedSubmits.get(), getBlockedMillis());
+    }
+}
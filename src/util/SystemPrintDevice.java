@@ -0,0 +1,61 @@
+package util;
+
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import java.awt.*;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+import java.awt.print.PrinterException;
+import java.awt.print.PrinterJob;
+
+// Prints receipts on the system's default printer without a dialog
+public class SystemPrintDevice implements PrintDevice {
+    private static final Font PRINT_FONT = new Font("Courier New", Font.PLAIN, 8);
+
+    @Override
+    public void print(String jobName, String text) throws PrinterException {
+        PrintService service = PrintServiceLookup.lookupDefaultPrintService();
+        if (service == null) {
+            throw new PrinterException("No default printer");
+        }
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintService(service);
+        job.setJobName(jobName);
+        job.setPrintable(new ReceiptPage(text.split("\n")));
+        job.print();
+    }
+
+    // One page of monospaced receipt lines
+    private static class ReceiptPage implements Printable {
+        private final String[] lines;
+
+        ReceiptPage(String[] lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) {
+            if (pageIndex > 0) {
+                return NO_SUCH_PAGE;
+            }
+
+            Graphics2D g2d = (Graphics2D) graphics;
+            g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
+            g2d.setFont(PRINT_FONT);
+            FontMetrics fm = g2d.getFontMetrics();
+
+            int lineHeight = fm.getHeight();
+            int y = lineHeight;
+            for (String line : lines) {
+                g2d.drawString(line, 0, y);
+                y += lineHeight;
+
+                // Check if we need a new page (simple implementation)
+                if (y > pageFormat.getImageableHeight() - lineHeight) {
+                    break;
+                }
+            }
+            return PAGE_EXISTS;
+        }
+    }
+}
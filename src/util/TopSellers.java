@@ -0,0 +1,94 @@
+package util;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Best-seller ranking maintained online.
+//
+// Products are kept in an array ordered by quantity sold (descending). A sale
+// only moves the affected product up past the entries it overtook, so top-N
+// queries read the first N slots in O(N) without sorting anything.
+public class TopSellers {
+    private static class Entry {
+        final String name;
+        int quantity;
+        int position;
+
+        Entry(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Entry[] ranking = new Entry[16];
+    private int size;
+
+    public synchronized void add(String productName, int quantity) {
+        Entry entry = entries.get(productName);
+        if (entry == null) {
+            entry = new Entry(productName);
+            if (size == ranking.length) {
+                ranking = Arrays.copyOf(ranking, size * 2);
+            }
+            entry.position = size;
+            ranking[size++] = entry;
+            entries.put(productName, entry);
+        }
+        entry.quantity += quantity;
+
+        // Shift overtaken entries down one slot; equal quantities keep their order
+        int position = entry.position;
+        while (position > 0 && ranking[position - 1].quantity < entry.quantity) {
+            Entry overtaken = ranking[position - 1];
+            ranking[position] = overtaken;
+            overtaken.position = position;
+            position--;
+        }
+        ranking[position] = entry;
+        entry.position = position;
+    }
+
+    // Adds every product quantity of another ranking, best seller first
+    public synchronized void addAll(TopSellers other) {
+        for (Map.Entry<String, Integer> entry : other.top(other.size())) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // The n best-selling products, highest quantity first
+    public synchronized List<Map.Entry<String, Integer>> top(int n) {
+        int count = Math.min(n, size);
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(ranking[i].name, ranking[i].quantity));
+        }
+        return result;
+    }
+
+    public synchronized int getQuantity(String productName) {
+        Entry entry = entries.get(productName);
+        return entry != null ? entry.quantity : 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized TopSellers copy() {
+        TopSellers copy = new TopSellers();
+        copy.ranking = new Entry[Math.max(16, size)];
+        for (int i = 0; i < size; i++) {
+            Entry entry = new Entry(ranking[i].name);
+            entry.quantity = ranking[i].quantity;
+            entry.position = i;
+            copy.ranking[i] = entry;
+            copy.entries.put(entry.name, entry);
+        }
+        copy.size = size;
+        return copy;
+    }
+}
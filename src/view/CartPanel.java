@@ -1,20 +1,21 @@
 package view;
 
 import controller.POSController;
-import model.CartItem;
+import model.Cart;
 import util.IconManager;
+import util.LatencyHistogram;
 import javax.swing.*;
+import javax.swing.border.Border;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
 
 public class CartPanel extends JPanel {
+    private static final LatencyHistogram REFRESH_LATENCY = LatencyHistogram.named("cart.refresh");
+
     private POSController controller;
     private JTable cartTable;
-    private DefaultTableModel tableModel;
+    private CartTableModel tableModel; // Backed by the cart shown; source of truth for the total
     private JLabel totalLabel;
     private JLabel itemCountLabel;
 
@@ -49,13 +50,7 @@ public class CartPanel extends JPanel {
     }
 
     private void createCartTable() {
-        String[] columnNames = { "🍽️ Product", "💰 Price", "🔢 Qty", "💸 Total", "🗑️ Delete" };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 4; // Only delete column is editable
-            }
-        };
+        tableModel = new CartTableModel();
 
         cartTable = new JTable(tableModel);
         setupTableStyling();
@@ -108,59 +103,17 @@ public class CartPanel extends JPanel {
         cartTable.getColumnModel().getColumn(3).setPreferredWidth(85); // Total
         cartTable.getColumnModel().getColumn(4).setPreferredWidth(85); // Delete
 
-        // Center align numeric columns
-        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
-        centerRenderer.setHorizontalAlignment(JLabel.CENTER);
-        cartTable.getColumnModel().getColumn(1).setCellRenderer(centerRenderer);
-        cartTable.getColumnModel().getColumn(2).setCellRenderer(centerRenderer);
-        cartTable.getColumnModel().getColumn(3).setCellRenderer(centerRenderer);
+        // One shared renderer for the text columns; it reuses its fonts, colors and
+        // border, so painting cells allocates nothing
+        CartCellRenderer cellRenderer = new CartCellRenderer();
+        cartTable.setDefaultRenderer(Object.class, cellRenderer);
+        for (int column = 0; column < CartTableModel.DELETE_COLUMN; column++) {
+            cartTable.getColumnModel().getColumn(column).setCellRenderer(cellRenderer);
+        }
 
         // Create delete button renderer
         cartTable.getColumnModel().getColumn(4).setCellRenderer(new DeleteButtonRenderer());
         cartTable.getColumnModel().getColumn(4).setCellEditor(new DeleteButtonEditor());
-
-        // Enhanced custom renderer for beautiful alternating row colors and better
-        // formatting
-        cartTable.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value,
-                    boolean isSelected, boolean hasFocus, int row, int column) {
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-
-                // Enhanced row coloring with subtle gradients
-                if (!isSelected && column != 4) { // Don't apply to delete button column
-                    if (row % 2 == 0) {
-                        c.setBackground(Color.WHITE);
-                    } else {
-                        c.setBackground(new Color(248, 251, 255)); // Very light blue
-                    }
-                } else if (isSelected && column != 4) {
-                    c.setBackground(new Color(52, 152, 219, 80)); // Semi-transparent selection
-                    c.setForeground(new Color(25, 25, 112)); // Dark blue text when selected
-                }
-
-                // Enhanced text formatting and alignment
-                if (column == 1 || column == 2 || column == 3) {
-                    ((JLabel) c).setHorizontalAlignment(JLabel.CENTER);
-                    if (column == 1 || column == 3) { // Price and Total columns
-                        c.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 13)); // Bold for money amounts
-                        if (column == 3) {
-                            c.setForeground(IconManager.SUCCESS_COLOR); // Green for totals
-                        }
-                    }
-                } else if (column == 0) { // Product name column
-                    c.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 13));
-                    c.setForeground(new Color(44, 62, 80)); // Dark blue-gray for product names
-                }
-
-                // Add subtle padding
-                if (c instanceof JLabel) {
-                    ((JLabel) c).setBorder(BorderFactory.createEmptyBorder(8, 12, 8, 12));
-                }
-
-                return c;
-            }
-        });
     }
 
     private void createBottomPanel() {
@@ -262,7 +215,8 @@ public class CartPanel extends JPanel {
         return checkoutButton;
     }
 
-    public void updateCartTable(HashMap<Integer, CartItem> cartItems) {
+    public void updateCartTable(Cart cart) {
+        long start = System.nanoTime();
         // Stop any ongoing editing to prevent conflicts
         if (cartTable.isEditing()) {
             try {
@@ -273,25 +227,11 @@ public class CartPanel extends JPanel {
             }
         }
 
-        tableModel.setRowCount(0);
-        double total = 0;
-        int itemCount = 0;
-
-        for (Map.Entry<Integer, CartItem> entry : cartItems.entrySet()) {
-            CartItem item = entry.getValue();
-            Object[] rowData = {
-                    item.getProduct().getName(),
-                    String.format("฿%.2f", item.getProduct().getPrice()),
-                    item.getQuantity(),
-                    item.getTotalPrice(), // Store actual numeric value, not formatted string
-                    "Delete" // Delete button text
-            };
-            tableModel.addRow(rowData);
-            total += item.getTotalPrice();
-            itemCount += item.getQuantity();
-        }
+        // Fires row events only for the lines that changed
+        tableModel.setCart(cart);
 
-        totalLabel.setText(String.format("💰 Total: ฿%.2f", total));
+        int itemCount = cart.getTotalQuantity();
+        totalLabel.setText(String.format("💰 Total: ฿%.2f", cart.getTotalAmount()));
         itemCountLabel.setText(String.format("📦 Items: %d", itemCount));
 
         // Add visual feedback when cart is updated
@@ -300,39 +240,81 @@ public class CartPanel extends JPanel {
         } else {
             totalLabel.setForeground(IconManager.SECONDARY_COLOR);
         }
+        REFRESH_LATENCY.recordSince(start);
     }
 
+    // Total of the cart shown, maintained by the cart model (no table parsing)
     public double getTotalAmount() {
-        double total = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            Object value = tableModel.getValueAt(i, 3);
-            if (value instanceof Double) {
-                total += (Double) value;
-            } else if (value instanceof Number) {
-                total += ((Number) value).doubleValue();
-            } else {
-                // Fallback: parse string if needed
-                String totalStr = value.toString();
-                String cleanTotal = totalStr.replace("฿", "").trim();
-                try {
-                    total += Double.parseDouble(cleanTotal);
-                } catch (NumberFormatException e) {
-                    System.err.println("Error parsing total: " + totalStr);
-                }
-            }
-        }
-        return total;
+        return tableModel.getCart().getTotalAmount();
     }
 
     public void clearCart() {
-        tableModel.setRowCount(0);
+        tableModel.clear();
         totalLabel.setText("💰 Total: ฿0.00");
         totalLabel.setForeground(IconManager.SECONDARY_COLOR);
         itemCountLabel.setText("📦 Items: 0");
     }
 
+    public JTable getCartTable() {
+        return cartTable;
+    }
+
+    // Cell renderer with alternating row colors, bold money amounts and padding.
+    // Everything it sets is built once here; getTableCellRendererComponent only
+    // picks between prebuilt values.
+    static class CartCellRenderer extends DefaultTableCellRenderer {
+        private static final Font NAME_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 13);
+        private static final Font MONEY_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 13); // Bold for money amounts
+        private static final Font PLAIN_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13);
+        private static final Color EVEN_ROW_COLOR = Color.WHITE;
+        private static final Color ODD_ROW_COLOR = new Color(248, 251, 255); // Very light blue
+        private static final Color SELECTED_BACKGROUND = new Color(52, 152, 219, 80); // Semi-transparent selection
+        private static final Color SELECTED_FOREGROUND = new Color(25, 25, 112); // Dark blue text when selected
+        private static final Color NAME_COLOR = new Color(44, 62, 80); // Dark blue-gray for product names
+        private static final Color TEXT_COLOR = Color.BLACK;
+        private static final Border PADDING = BorderFactory.createEmptyBorder(8, 12, 8, 12);
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value,
+                boolean isSelected, boolean hasFocus, int row, int column) {
+            // Skip DefaultTableCellRenderer's per-call focus border and color lookups
+            setText(value != null ? value.toString() : "");
+            setBorder(PADDING);
+
+            if (isSelected) {
+                setBackground(SELECTED_BACKGROUND);
+                setForeground(SELECTED_FOREGROUND);
+            } else {
+                setBackground(row % 2 == 0 ? EVEN_ROW_COLOR : ODD_ROW_COLOR);
+                if (column == CartTableModel.PRODUCT_COLUMN) {
+                    setForeground(NAME_COLOR);
+                } else if (column == CartTableModel.TOTAL_COLUMN) {
+                    setForeground(IconManager.SUCCESS_COLOR); // Green for totals
+                } else {
+                    setForeground(TEXT_COLOR);
+                }
+            }
+
+            if (column == CartTableModel.PRODUCT_COLUMN) {
+                setHorizontalAlignment(JLabel.LEFT);
+                setFont(NAME_FONT);
+            } else {
+                setHorizontalAlignment(JLabel.CENTER);
+                setFont(column == CartTableModel.QUANTITY_COLUMN ? PLAIN_FONT : MONEY_FONT);
+            }
+            return this;
+        }
+    }
+
     // Enhanced delete button renderer class with premium styling
     private class DeleteButtonRenderer extends JPanel implements javax.swing.table.TableCellRenderer {
+        private final Border raisedBorder = BorderFactory.createCompoundBorder(
+                BorderFactory.createRaisedBevelBorder(),
+                BorderFactory.createEmptyBorder(3, 8, 3, 8));
+        private final Border pressedBorder = BorderFactory.createCompoundBorder(
+                BorderFactory.createLoweredBevelBorder(), // Pressed effect when selected
+                BorderFactory.createEmptyBorder(3, 8, 3, 8));
+        private final Color pressedColor = IconManager.DANGER_COLOR.darker();
         private JButton deleteButton;
 
         public DeleteButtonRenderer() {
@@ -344,9 +326,7 @@ public class CartPanel extends JPanel {
             deleteButton.setForeground(Color.WHITE);
 
             // Enhanced 3D button effect
-            deleteButton.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createRaisedBevelBorder(),
-                    BorderFactory.createEmptyBorder(3, 8, 3, 8)));
+            deleteButton.setBorder(raisedBorder);
 
             deleteButton.setFocusPainted(false);
             deleteButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
@@ -358,16 +338,12 @@ public class CartPanel extends JPanel {
                 boolean isSelected, boolean hasFocus, int row, int column) {
             if (isSelected) {
                 setBackground(table.getSelectionBackground());
-                deleteButton.setBackground(IconManager.DANGER_COLOR.darker());
-                deleteButton.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLoweredBevelBorder(), // Pressed effect when selected
-                        BorderFactory.createEmptyBorder(3, 8, 3, 8)));
+                deleteButton.setBackground(pressedColor);
+                deleteButton.setBorder(pressedBorder);
             } else {
                 setBackground(table.getBackground());
                 deleteButton.setBackground(IconManager.DANGER_COLOR);
-                deleteButton.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createRaisedBevelBorder(),
-                        BorderFactory.createEmptyBorder(3, 8, 3, 8)));
+                deleteButton.setBorder(raisedBorder);
             }
             return this;
         }
@@ -0,0 +1,161 @@
+package view;
+
+import model.Cart;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+// Table model backed directly by a cart snapshot.
+//
+// setCart() compares the new snapshot with the one shown and fires row events
+// only for what changed: one updated row when a quantity changes, one inserted
+// row when a product is added, one deleted row when a line disappears. The
+// JTable then repaints just those rows instead of the whole table.
+//
+// Price, quantity and line total texts are formatted when a line changes, not on every
+// paint, so rendering a cell reads a cached String.
+class CartTableModel extends AbstractTableModel {
+    static final int PRODUCT_COLUMN = 0;
+    static final int PRICE_COLUMN = 1;
+    static final int QUANTITY_COLUMN = 2;
+    static final int TOTAL_COLUMN = 3;
+    static final int DELETE_COLUMN = 4;
+
+    private static final String[] COLUMN_NAMES = { "🍽️ Product", "💰 Price", "🔢 Qty", "💸 Total", "🗑️ Delete" };
+    private static final Cart EMPTY_CART = new Cart().snapshot();
+
+    private Cart cart = EMPTY_CART;
+    private String[] priceTexts = new String[0];
+    private String[] quantityTexts = new String[0];
+    private String[] totalTexts = new String[0];
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public void setCart(Cart newCart) {
+        Cart oldCart = cart;
+        cart = newCart.snapshot();
+        if (oldCart == cart) {
+            return;
+        }
+
+        int oldSize = oldCart.size();
+        int newSize = cart.size();
+        int common = Math.min(oldSize, newSize);
+        int first = 0;
+        while (first < common && oldCart.getProductId(first) == cart.getProductId(first)) {
+            first++;
+        }
+
+        ensureCapacity(newSize);
+        if (newSize == 0) {
+            if (oldSize > 0) { // Two empty carts differ only by identity
+                fireTableRowsDeleted(0, oldSize - 1);
+            }
+        } else if (oldSize == 0) {
+            for (int i = 0; i < newSize; i++) {
+                formatLine(i);
+            }
+            fireTableRowsInserted(0, newSize - 1);
+        } else if (newSize == oldSize + 1 && first == oldSize) {
+            fireQuantityChanges(oldCart, oldSize);
+            formatLine(oldSize);
+            fireTableRowsInserted(oldSize, oldSize);
+        } else if (newSize == oldSize - 1 && sameIdsAfter(oldCart, first)) {
+            fireQuantityChanges(oldCart, first);
+            System.arraycopy(priceTexts, first + 1, priceTexts, first, newSize - first);
+            System.arraycopy(quantityTexts, first + 1, quantityTexts, first, newSize - first);
+            System.arraycopy(totalTexts, first + 1, totalTexts, first, newSize - first);
+            fireTableRowsDeleted(first, first);
+        } else if (newSize == oldSize && first == oldSize) {
+            fireQuantityChanges(oldCart, newSize);
+        } else {
+            for (int i = 0; i < newSize; i++) {
+                formatLine(i);
+            }
+            fireTableDataChanged();
+        }
+    }
+
+    public void clear() {
+        setCart(EMPTY_CART);
+    }
+
+    @Override
+    public int getRowCount() {
+        return cart.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case PRODUCT_COLUMN:
+                return cart.getProduct(row).getName();
+            case PRICE_COLUMN:
+                return priceTexts[row];
+            case QUANTITY_COLUMN:
+                return quantityTexts[row];
+            case TOTAL_COLUMN:
+                return totalTexts[row];
+            default:
+                return "Delete";
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == DELETE_COLUMN; // Only delete column is editable
+    }
+
+    // Lines [0, count) hold the same products in both carts; fire for changed quantities
+    private void fireQuantityChanges(Cart oldCart, int count) {
+        for (int i = 0; i < count; i++) {
+            if (oldCart.getQuantity(i) != cart.getQuantity(i)) {
+                quantityTexts[i] = String.valueOf(cart.getQuantity(i));
+                totalTexts[i] = formatMoney(cart.getLineTotalSatang(i));
+                fireTableRowsUpdated(i, i);
+            }
+        }
+    }
+
+    private void formatLine(int row) {
+        priceTexts[row] = formatMoney(cart.getProduct(row).getPriceSatang());
+        quantityTexts[row] = String.valueOf(cart.getQuantity(row));
+        totalTexts[row] = formatMoney(cart.getLineTotalSatang(row));
+    }
+
+    private static String formatMoney(long satang) {
+        return String.format("฿%.2f", satang / 100.0);
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows > priceTexts.length) {
+            int capacity = Math.max(rows, priceTexts.length * 2);
+            priceTexts = Arrays.copyOf(priceTexts, capacity);
+            quantityTexts = Arrays.copyOf(quantityTexts, capacity);
+            totalTexts = Arrays.copyOf(totalTexts, capacity);
+        }
+    }
+
+    // True if the new cart equals the old one with line 'removed' taken out
+    private boolean sameIdsAfter(Cart oldCart, int removed) {
+        for (int i = removed; i < cart.size(); i++) {
+            if (oldCart.getProductId(i + 1) != cart.getProductId(i)
+                    || oldCart.getQuantity(i + 1) != cart.getQuantity(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -129,9 +129,14 @@ public class MainFrame extends JFrame {
         salesLocationItem.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
         salesLocationItem.addActionListener(e -> controller.showSalesDataLocation());
 
+        JMenuItem performanceItem = new JMenuItem("⏱️ บันทึกสถิติประสิทธิภาพ");
+        performanceItem.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        performanceItem.addActionListener(e -> controller.dumpPerformanceReport());
+
         salesMenu.add(dailySummaryItem);
         salesMenu.addSeparator();
         salesMenu.add(salesLocationItem);
+        salesMenu.add(performanceItem);
 
         // Help menu
         JMenu helpMenu = new JMenu("❓ ความช่วยเหลือ");
@@ -166,8 +171,8 @@ public class MainFrame extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
-    public void updateCartView(java.util.HashMap<Integer, model.CartItem> cartItems) {
-        cartPanel.updateCartTable(cartItems);
+    public void updateCartView(model.Cart cart) {
+        cartPanel.updateCartTable(cart);
     }
 
     public CartPanel getCartPanel() {
@@ -0,0 +1,281 @@
+package view;
+
+import model.Product;
+import model.ProductIndex;
+import util.IconManager;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+// Virtualized grid of product buttons.
+//
+// The grid is as tall as all matching products would be, but only the rows
+// inside the viewport have buttons. Buttons come from a pool sized to the
+// viewport and are reused: the product at match position p always goes to
+// slot p % poolSize, so scrolling by one row rebinds only that row's buttons.
+// Buttons paint their emoji, name and price directly with prebuilt fonts
+// instead of HTML text, which would be parsed into a view tree on every rebind.
+// Product icons are rendered off the EDT by IconPrerenderer; until a button's
+// icon is in the cache it shows the product emoji and asks for the icon.
+// All buttons share one mouse listener and one action listener.
+class ProductGrid extends JPanel implements Scrollable {
+    static final int COLUMNS = 4;
+    static final int GAP = 10;
+    static final int CELL_WIDTH = 250;
+    static final int CELL_HEIGHT = 170; // Tall enough to show the full price
+
+    private static final Color BORDER_COLOR = new Color(200, 200, 200);
+    private static final Color HOVER_COLOR = new Color(245, 245, 245);
+    private static final Color PRESSED_COLOR = new Color(230, 230, 230);
+    private static final Font BUTTON_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    private static final Border NORMAL_BORDER = BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(BORDER_COLOR, 1), // Simple gray border
+            BorderFactory.createEmptyBorder(8, 8, 8, 8)); // Reduced internal padding to fit content
+    private static final Border HOVER_BORDER = BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(IconManager.PRIMARY_COLOR, 2), // Blue border on hover
+            BorderFactory.createEmptyBorder(8, 8, 8, 8));
+    private static final Font EMOJI_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 36);
+    private static final Font NAME_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 13);
+    private static final Font PRICE_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 15);
+    private static final Color NAME_COLOR = new Color(0x33, 0x33, 0x33);
+    private static final Color PRICE_COLOR = new Color(0x27, 0xae, 0x60);
+
+    private final MouseAdapter hoverListener = new HoverListener();
+    private final ActionListener actionListener;
+    private Consumer<Product> iconRequester = product -> { };
+
+    private ProductIndex index = new ProductIndex(Collections.<Product>emptyList());
+    private int[] matches = new int[0];
+    private ProductButton[] pool = new ProductButton[0];
+    private int[] boundPositions = new int[0]; // Match position shown by each pool slot, -1 if none
+
+    // clickHandler receives the clicked button; its product is getProduct(button)
+    ProductGrid(Consumer<JButton> clickHandler) {
+        super(null);
+        this.actionListener = e -> clickHandler.accept((JButton) e.getSource());
+        setBackground(IconManager.BACKGROUND_COLOR);
+    }
+
+    // Called for bound products whose icon is not cached yet
+    void setIconRequester(Consumer<Product> iconRequester) {
+        this.iconRequester = iconRequester;
+    }
+
+    void setIndex(ProductIndex index) {
+        this.index = index;
+        setMatches(index.filter(""));
+    }
+
+    ProductIndex getIndex() {
+        return index;
+    }
+
+    // Shows only the given catalog positions, in order
+    void setMatches(int[] matches) {
+        this.matches = matches;
+        Arrays.fill(boundPositions, -1);
+        revalidate();
+        repaint();
+    }
+
+    int getMatchCount() {
+        return matches.length;
+    }
+
+    // Number of buttons that exist, however many products there are
+    int getMaterializedCount() {
+        return pool.length;
+    }
+
+    Product getProduct(JButton button) {
+        return button instanceof ProductButton ? ((ProductButton) button).product : null;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int rows = (matches.length + COLUMNS - 1) / COLUMNS;
+        return new Dimension(COLUMNS * CELL_WIDTH + (COLUMNS - 1) * GAP,
+                Math.max(0, rows * (CELL_HEIGHT + GAP) - GAP));
+    }
+
+    // Places buttons for the rows intersecting the visible rectangle
+    @Override
+    public void doLayout() {
+        Rectangle visible = getVisibleRect();
+        int rowHeight = CELL_HEIGHT + GAP;
+        ensurePool((visible.height + rowHeight - 1) / rowHeight + 1);
+
+        int cellWidth = Math.max(1, (getWidth() - (COLUMNS - 1) * GAP) / COLUMNS);
+        int firstRow = visible.y / rowHeight;
+        int lastRow = (visible.y + Math.max(visible.height, 1) - 1) / rowHeight;
+        int first = Math.min(matches.length, firstRow * COLUMNS);
+        int end = Math.min(matches.length, (lastRow + 1) * COLUMNS);
+
+        for (int position = first; position < end; position++) {
+            int slot = position % pool.length;
+            ProductButton button = pool[slot];
+            if (boundPositions[slot] != position) {
+                Product product = index.get(matches[position]);
+                button.bind(product);
+                if (!IconManager.isProductIconCached(product.getName())) {
+                    iconRequester.accept(product);
+                }
+                boundPositions[slot] = position;
+            }
+            int row = position / COLUMNS;
+            int column = position % COLUMNS;
+            button.setBounds(column * (cellWidth + GAP), row * rowHeight, cellWidth, CELL_HEIGHT);
+            button.setVisible(true);
+        }
+        // Positions in [first, end) map to distinct slots, so any slot bound
+        // outside that range is not needed for this viewport
+        for (int slot = 0; slot < pool.length; slot++) {
+            if (boundPositions[slot] < first || boundPositions[slot] >= end) {
+                pool[slot].setVisible(false);
+            }
+        }
+    }
+
+    private void ensurePool(int visibleRows) {
+        int size = Math.max(1, visibleRows) * COLUMNS;
+        if (size == pool.length) {
+            return;
+        }
+        // The slot mapping depends on the pool size, so rebuild it from scratch
+        removeAll();
+        pool = new ProductButton[size];
+        boundPositions = new int[size];
+        Arrays.fill(boundPositions, -1);
+        for (int slot = 0; slot < size; slot++) {
+            pool[slot] = createButton();
+            add(pool[slot]);
+        }
+    }
+
+    private ProductButton createButton() {
+        ProductButton button = new ProductButton();
+        button.setBackground(IconManager.CARD_COLOR);
+        button.setForeground(Color.BLACK);
+        button.setFont(BUTTON_FONT);
+        button.setBorder(NORMAL_BORDER);
+        button.setFocusPainted(false);
+        button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        button.addMouseListener(hoverListener);
+        button.addActionListener(actionListener);
+        button.setVisible(false);
+        return button;
+    }
+
+    // Button that draws icon (or emoji), name and price centered on three lines
+    private static class ProductButton extends JButton {
+        private Product product;
+        private String emoji = "";
+        private String name = "";
+        private String price = "";
+
+        void bind(Product product) {
+            this.product = product;
+            this.emoji = IconManager.getProductEmoji(product.getName());
+            this.name = product.getName();
+            this.price = String.format("฿%.2f", product.getPrice());
+            setToolTipText(name);
+            setBackground(IconManager.CARD_COLOR);
+            setBorder(NORMAL_BORDER);
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g); // Background, no text
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            FontMetrics emojiMetrics = g2.getFontMetrics(EMOJI_FONT);
+            FontMetrics nameMetrics = g2.getFontMetrics(NAME_FONT);
+            FontMetrics priceMetrics = g2.getFontMetrics(PRICE_FONT);
+            int spacing = 5;
+            int textHeight = emojiMetrics.getHeight() + nameMetrics.getHeight() + priceMetrics.getHeight() + 2 * spacing;
+            int y = (getHeight() - textHeight) / 2;
+
+            // Repaints must not count as icon cache hits or misses
+            ImageIcon icon = IconManager.peekProductIcon(name);
+            if (icon != null) {
+                // Same slot as the emoji so the text does not move when the icon arrives
+                icon.paintIcon(this, g2, (getWidth() - icon.getIconWidth()) / 2,
+                        y + (emojiMetrics.getHeight() - icon.getIconHeight()) / 2);
+                y += emojiMetrics.getHeight() + spacing;
+            } else {
+                y = drawCentered(g2, emoji, EMOJI_FONT, emojiMetrics, getForeground(), y) + spacing;
+            }
+            y = drawCentered(g2, name, NAME_FONT, nameMetrics, NAME_COLOR, y) + spacing;
+            drawCentered(g2, price, PRICE_FONT, priceMetrics, PRICE_COLOR, y);
+        }
+
+        // Draws one line with its top at y and returns the y below it
+        private int drawCentered(Graphics2D g2, String text, Font font, FontMetrics metrics, Color color, int y) {
+            g2.setFont(font);
+            g2.setColor(color);
+            g2.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2, y + metrics.getAscent());
+            return y + metrics.getHeight();
+        }
+    }
+
+    // Simple hover effects matching the clean example design
+    private static class HoverListener extends MouseAdapter {
+        @Override
+        public void mouseEntered(MouseEvent e) {
+            JButton button = (JButton) e.getSource();
+            button.setBackground(HOVER_COLOR);
+            button.setBorder(HOVER_BORDER);
+        }
+
+        @Override
+        public void mouseExited(MouseEvent e) {
+            JButton button = (JButton) e.getSource();
+            button.setBackground(IconManager.CARD_COLOR);
+            button.setBorder(NORMAL_BORDER);
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            e.getComponent().setBackground(PRESSED_COLOR);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            e.getComponent().setBackground(HOVER_COLOR);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(COLUMNS * CELL_WIDTH + (COLUMNS - 1) * GAP, 3 * (CELL_HEIGHT + GAP));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return (CELL_HEIGHT + GAP) / 4;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
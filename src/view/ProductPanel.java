@@ -2,17 +2,21 @@ package view;
 
 import controller.POSController;
 import model.Product;
+import model.ProductIndex;
 import util.IconManager;
+import util.IconPrerenderer;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 import java.util.List;
 
+// Product menu: a type-ahead search field over a virtualized grid, so large
+// catalogs load and filter without building a button per product.
 public class ProductPanel extends JPanel {
     private POSController controller;
-    private static final Color HOVER_COLOR = new Color(230, 230, 230);
-    private static final Color CLICK_COLOR = new Color(200, 200, 200);
+    private ProductGrid productGrid;
+    private JTextField searchField;
 
     public ProductPanel(POSController controller) {
         this.controller = controller;
@@ -22,7 +26,7 @@ public class ProductPanel extends JPanel {
 
     private void setupPanel() {
 
-        setLayout(new GridLayout(0, 4, 10, 10));
+        setLayout(new BorderLayout(10, 10));
         setBackground(IconManager.BACKGROUND_COLOR);
 
         // Simple title matching the example style
@@ -35,97 +39,63 @@ public class ProductPanel extends JPanel {
                         new Font(Font.SANS_SERIF, Font.BOLD, 16),
                         IconManager.PRIMARY_COLOR),
                 BorderFactory.createEmptyBorder(20, 20, 20, 20)));
-    }
-
-    public void loadProducts() {
-        removeAll();
-        List<Product> products = controller.getProducts();
-
-        for (Product product : products) {
-            JButton productButton = createProductButton(product);
-            add(productButton);
-        }
-
-        revalidate();
-        repaint();
-    }
-
-    private JButton createProductButton(Product product) {
-        // Get product emoji
-        String emoji = IconManager.getProductEmoji(product.getName());
-
-        // Enhanced button text with optimized spacing to prevent price cutoff
-        String buttonText = String.format(
-                "<html><center><div style='padding: 5px; line-height: 1.2;'>" +
-                        "<div style='font-size: 36px; margin-bottom: 5px;'>%s</div>" +
-                        "<div style='font-size: 13px; font-weight: bold; margin-bottom: 3px; color: #333333;'>%s</div>"
-                        +
-                        "<div style='font-size: 15px; color: #27ae60; font-weight: bold;'>฿%.2f</div>" +
-                        "</div></center></html>",
-                emoji, product.getName(), product.getPrice());
-
-        JButton button = new JButton(buttonText);
-
-        // Set font that supports emojis
-        button.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
-
-        // Remove icon since we're using emoji in text
-        button.setIcon(null);
-        button.setVerticalTextPosition(SwingConstants.CENTER);
-        button.setHorizontalTextPosition(SwingConstants.CENTER);
-
-        button.setPreferredSize(new Dimension(250, 170)); // Increased height to show full price
-        button.setMinimumSize(new Dimension(230, 150)); // Minimum size ensuring content fits
-        button.setMaximumSize(new Dimension(270, 190)); // Maximum size for layout consistency
-        button.setBackground(IconManager.CARD_COLOR);
-        button.setForeground(Color.BLACK);
-        button.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
-
-        // Enhanced border with reduced internal padding to maximize content space
-        button.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(new Color(200, 200, 200), 1), // Simple gray border
-                BorderFactory.createEmptyBorder(8, 8, 8, 8) // Reduced internal padding to fit content
-        ));
-        button.setFocusPainted(false);
-        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
-
-        // Simple hover effects matching the clean example design
-        button.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                button.setBackground(new Color(245, 245, 245)); // Light gray hover
-                button.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(IconManager.PRIMARY_COLOR, 2), // Blue border on hover
-                        BorderFactory.createEmptyBorder(8, 8, 8, 8)));
-            }
 
+        searchField = new JTextField();
+        searchField.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+        searchField.setToolTipText("Search products");
+        searchField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+                BorderFactory.createEmptyBorder(6, 8, 6, 8)));
+        // Filter on every keystroke
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void mouseExited(MouseEvent e) {
-                button.setBackground(IconManager.CARD_COLOR);
-                button.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createLineBorder(new Color(200, 200, 200), 1), // Back to gray border
-                        BorderFactory.createEmptyBorder(8, 8, 8, 8)));
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
             }
 
             @Override
-            public void mousePressed(MouseEvent e) {
-                button.setBackground(new Color(230, 230, 230)); // Darker gray when pressed
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
             }
 
             @Override
-            public void mouseReleased(MouseEvent e) {
-                button.setBackground(new Color(245, 245, 245)); // Back to hover state
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
             }
         });
+        add(searchField, BorderLayout.NORTH);
+
+        productGrid = new ProductGrid(this::onProductClicked);
+        // Icons are rendered in the background; repaint as they arrive
+        IconPrerenderer iconPrerenderer = controller.getIconPrerenderer();
+        productGrid.setIconRequester(iconPrerenderer::request);
+        iconPrerenderer.setListener(productGrid::repaint);
+        JScrollPane scrollPane = new JScrollPane(productGrid);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(IconManager.BACKGROUND_COLOR);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        // Buttons only exist for visible rows, so lay them out again as the view scrolls
+        scrollPane.getViewport().addChangeListener(e -> productGrid.doLayout());
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    public void loadProducts() {
+        List<Product> products = controller.getProducts();
+        productGrid.setIndex(new ProductIndex(products));
+        applyFilter();
+    }
+
+    private void applyFilter() {
+        productGrid.setMatches(productGrid.getIndex().filter(searchField.getText()));
+    }
 
-        // Add action listener
-        button.addActionListener(e -> {
+    private void onProductClicked(JButton button) {
+        Product product = productGrid.getProduct(button);
+        if (product != null) {
             controller.addProductToCart(product);
             // Add visual feedback
             showAddToCartFeedback(button);
-        });
-
-        return button;
+        }
     }
 
     private void showAddToCartFeedback(JButton button) {
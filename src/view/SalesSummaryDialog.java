@@ -1,6 +1,7 @@
 package view;
 
 import util.IconManager;
+import util.SalesTracker;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
@@ -20,13 +21,13 @@ public class SalesSummaryDialog extends JDialog {
     private JTextArea summaryTextArea;
     private JTextArea detailsTextArea;
     private JLabel statusLabel;
-    private String salesDataPath;
+    private SalesTracker salesTracker;
     private String summaryDataPath;
 
-    public SalesSummaryDialog(JFrame parent) {
+    public SalesSummaryDialog(JFrame parent, SalesTracker salesTracker) {
         super(parent, "📊 สรุปยอดขายประจำวัน", true);
-        this.salesDataPath = "sales_data" + File.separator + "daily_sales_" + getCurrentDate() + ".txt";
-        this.summaryDataPath = "sales_data" + File.separator + "sales_summary_" + getCurrentDate() + ".txt";
+        this.salesTracker = salesTracker;
+        this.summaryDataPath = salesTracker.getDailySummaryFilePath();
 
         initializeDialog();
         createComponents();
@@ -236,8 +237,8 @@ public class SalesSummaryDialog extends JDialog {
                 statusLabel.setText("⚠️ ยังไม่มีข้อมูลยอดขาย");
             }
 
-            // Load details data
-            String detailsContent = loadFileContent(salesDataPath);
+            // Load details data (the sales journal is binary, so format it from the tracker)
+            String detailsContent = salesTracker.formatSalesDetails(LocalDate.now());
             if (detailsContent != null && !detailsContent.trim().isEmpty()) {
                 detailsTextArea.setText(detailsContent);
             } else {
@@ -272,10 +273,6 @@ public class SalesSummaryDialog extends JDialog {
         return content.toString();
     }
 
-    private String getCurrentDate() {
-        return LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-    }
-
     private String getCurrentDateFormatted() {
         return LocalDate.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
     }
@@ -0,0 +1,187 @@
+package controller;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import util.ReceiptNumberGenerator;
+import util.ReceiptPrinter;
+import util.SalesHistoryLoader;
+import util.SalesJournal;
+import util.SalesTracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckoutServiceTest {
+    private static final Product LATTE = new Product(1, "Latte", 55.0);
+    private static final Product MOCHA = new Product(2, "Mocha", 60.5);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SalesTracker salesTracker;
+
+    @After
+    public void closeTracker() {
+        if (salesTracker != null) {
+            salesTracker.close();
+        }
+    }
+
+    @Test
+    public void checkoutRecordsTheSaleAndEmptiesTheCart() throws IOException {
+        CheckoutService checkout = service();
+        checkout.addProduct(LATTE, 2);
+        checkout.addProduct(MOCHA);
+
+        ReceiptPrinter receipt = checkout.checkout(200.0);
+
+        assertEquals(170.5, receipt.getTotalAmount(), 0);
+        assertEquals(29.5, receipt.getChangeAmount(), 0);
+        assertEquals("POS01-000001", receipt.getReceiptNumber());
+        assertEquals(3, receipt.getCart().getTotalQuantity());
+        assertTrue(checkout.isCartEmpty());
+        assertSame(receipt, checkout.getLastReceipt());
+        assertEquals(1, salesTracker.getTodaysAggregates().getTransactionCount());
+
+        checkout.addProduct(LATTE);
+        assertEquals("POS01-000002", checkout.checkout(0).getReceiptNumber());
+    }
+
+    @Test
+    public void journaledSaleCarriesTheReceiptNumber() throws IOException {
+        CheckoutService checkout = service();
+        checkout.addProduct(LATTE);
+        ReceiptPrinter receipt = checkout.checkout(0);
+        salesTracker.flush();
+
+        File journal = new SalesHistoryLoader(folder.getRoot().getPath()).getJournalFile(LocalDate.now());
+        List<Sale> sales = SalesJournal.readSales(journal);
+        assertEquals(1, sales.size());
+        assertEquals(receipt.getReceiptNumber(), sales.get(0).getReceiptNumber());
+        assertEquals(receipt.getReceiptNumber(), salesTracker.getTodaysSales().get(0).getReceiptNumber());
+        assertEquals(sales.get(0).getSaleDateTime(), receipt.getSaleDateTime());
+    }
+
+    @Test
+    public void cartStaysReadableButFixedWhileASaleIsBeingRecorded() throws Exception {
+        CountDownLatch recording = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        salesTracker = new SalesTracker(folder.getRoot().getPath()) {
+            @Override
+            public Sale recordSale(Cart cart, double totalAmount, double receivedAmount, double changeAmount,
+                    String receiptNumber, String terminalId) {
+                recording.countDown();
+                try {
+                    release.await(); // Like a writer queue that is full
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.recordSale(cart, totalAmount, receivedAmount, changeAmount, receiptNumber, terminalId);
+            }
+        };
+        CheckoutService checkout = new CheckoutService(salesTracker, new ReceiptNumberGenerator(
+                new File(folder.newFolder(), "receipt_numbers.properties"), "01", 10), null);
+        checkout.addProduct(LATTE, 2);
+
+        AtomicReference<ReceiptPrinter> receipt = new AtomicReference<>();
+        Thread till = new Thread(() -> receipt.set(checkout.checkout(0)));
+        till.start();
+        assertTrue(recording.await(10, TimeUnit.SECONDS));
+
+        assertEquals(2, checkout.getCart().getTotalQuantity()); // Does not wait for the recording
+        assertEquals(11000, checkout.getTotalSatang());
+        try {
+            checkout.addProduct(MOCHA);
+            fail("Changed the cart while it was being sold");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, checkout.getCart().size());
+        }
+
+        release.countDown();
+        till.join(10_000);
+        assertEquals(2, receipt.get().getCart().getTotalQuantity());
+        assertTrue(checkout.isCartEmpty());
+        assertEquals(1, checkout.addProduct(MOCHA).size());
+    }
+
+    @Test
+    public void emptyCartCannotBeCheckedOut() throws IOException {
+        CheckoutService checkout = service();
+        try {
+            checkout.checkout(100.0);
+            fail("Checked out an empty cart");
+        } catch (IllegalStateException expected) {
+            assertNull(checkout.getLastReceipt());
+        }
+    }
+
+    @Test
+    public void insufficientPaymentKeepsTheCart() throws IOException {
+        CheckoutService checkout = service();
+        checkout.addProduct(LATTE, 2);
+        try {
+            checkout.checkout(100.0);
+            fail("Accepted 100 for 110");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(2, checkout.getCart().getTotalQuantity());
+            assertNull(checkout.getLastReceipt());
+            assertEquals(0, salesTracker.getTodaysAggregates().getTransactionCount());
+        }
+    }
+
+    @Test
+    public void saleThatCannotBeRecordedKeepsTheCartAndIssuesNoReceipt() throws IOException {
+        File journal = new SalesHistoryLoader(folder.getRoot().getPath()).getJournalFile(LocalDate.now());
+        if (!journal.mkdirs()) { // A directory in the journal's place cannot be opened for writing
+            throw new IOException("Cannot create " + journal);
+        }
+        CheckoutService checkout = service();
+        checkout.addProduct(LATTE, 2);
+        try {
+            checkout.checkout(0);
+            fail("Checked out a sale that cannot be saved");
+        } catch (IllegalStateException expected) {
+            Cart cart = checkout.getCart();
+            assertEquals(1, cart.size());
+            assertEquals(2, cart.getTotalQuantity());
+            assertNull(checkout.getLastReceipt());
+        }
+    }
+
+    @Test
+    public void removeOneTakesOffOneUnit() throws IOException {
+        CheckoutService checkout = service();
+        checkout.addProduct(LATTE, 2);
+        assertEquals(1, checkout.removeOne("Latte").getTotalQuantity());
+        assertTrue(checkout.removeOne("Latte").isEmpty());
+        try {
+            checkout.removeOne("Latte");
+            fail("Removed a product that is not in the cart");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(checkout.isCartEmpty());
+        }
+    }
+
+    private CheckoutService service() throws IOException {
+        salesTracker = new SalesTracker(folder.getRoot().getPath());
+        ReceiptNumberGenerator receiptNumbers = new ReceiptNumberGenerator(
+                new File(folder.newFolder(), "receipt_numbers.properties"), "01", 10);
+        return new CheckoutService(salesTracker, receiptNumbers, null);
+    }
+}
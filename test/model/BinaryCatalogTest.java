@@ -0,0 +1,125 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryCatalogTest {
+    private static final List<Product> PRODUCTS = Arrays.asList(
+            new Product(1, "Latte", 65.0),
+            new Product(7, "ชาไทย", 45.5),
+            new Product(12, "", 10.0));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        File file = folder.newFile("products.bin");
+        BinaryCatalog.write(PRODUCTS, file);
+
+        BinaryCatalog catalog = BinaryCatalog.open(file);
+        assertEquals(3, catalog.size());
+        assertEquals("ชาไทย", catalog.getName(1));
+        assertEquals(4550, catalog.getPriceSatang(1));
+
+        List<Product> products = catalog.toProducts();
+        for (int i = 0; i < PRODUCTS.size(); i++) {
+            assertEquals(PRODUCTS.get(i).getId(), products.get(i).getId());
+            assertEquals(PRODUCTS.get(i).getName(), products.get(i).getName());
+            assertEquals(PRODUCTS.get(i).getPriceSatang(), products.get(i).getPriceSatang());
+        }
+    }
+
+    @Test
+    public void truncatedFileIsRejectedWhenOpened() throws IOException {
+        File file = folder.newFile("products.bin");
+        BinaryCatalog.write(PRODUCTS, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void hugeCountIsRejectedWhenOpened() throws IOException {
+        File file = folder.newFile("products.bin");
+        BinaryCatalog.write(PRODUCTS, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(8);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void nameOffsetOutsideTheStringTableIsRejectedWhenOpened() throws IOException {
+        File file = folder.newFile("products.bin");
+        BinaryCatalog.write(PRODUCTS, file);
+        // The second name offset follows the header, three ids and three prices
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(16 + 3 * 4 + 3 * 8 + 4);
+            raf.writeInt(10_000);
+        }
+        assertRejected(file);
+    }
+
+    @Test
+    public void corruptBinaryCatalogFallsBackToTheCsv() throws IOException {
+        File csv = writeCsv("1,Latte,65.0\n");
+        File bin = new File(folder.getRoot(), "products.bin");
+        try (FileWriter fw = new FileWriter(bin)) {
+            fw.write("CPOS but not really a catalog");
+        }
+        assertTrue(bin.setLastModified(csv.lastModified() + 1000));
+
+        List<Product> products = new CSVManager(csv.getPath()).getAllProducts();
+        assertEquals(1, products.size());
+        assertEquals("Latte", products.get(0).getName());
+    }
+
+    @Test
+    public void staleBinaryCatalogIsRewrittenFromTheCsv() throws IOException {
+        File csv = writeCsv("1,Latte,65.0\n");
+        File bin = new File(folder.getRoot(), "products.bin");
+        CSVManager manager = new CSVManager(csv.getPath());
+        manager.exportBinaryCatalog();
+
+        writeCsv("1,Latte,65.0\n2,Mocha,80.0\n");
+        assertTrue(bin.setLastModified(csv.lastModified() - 1000));
+
+        List<Product> products = manager.getAllProducts();
+        assertEquals(2, products.size());
+        assertTrue(bin.lastModified() >= csv.lastModified());
+        assertEquals("Mocha", BinaryCatalog.open(bin).getName(1));
+    }
+
+    private File writeCsv(String rows) throws IOException {
+        File csv = new File(folder.getRoot(), "products.csv");
+        try (FileWriter fw = new FileWriter(csv)) {
+            fw.write("id,name,price\n");
+            fw.write(rows);
+        }
+        return csv;
+    }
+
+    private static void assertRejected(File file) {
+        try {
+            BinaryCatalog.open(file);
+            fail("Expected an IOException for " + file);
+        } catch (IOException expected) {
+            // Rejected before any index is read
+        }
+    }
+}
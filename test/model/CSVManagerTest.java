@@ -0,0 +1,99 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CSVManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void unchangedFileIsParsedOnce() throws IOException {
+        CSVManager manager = new CSVManager(writeCsv("1,Latte,65.0\n").getPath());
+
+        List<Product> first = manager.getAllProducts();
+        assertSame(first, manager.getAllProducts());
+        try {
+            first.add(new Product(2, "Mocha", 80.0));
+            fail("Cached snapshot can be modified");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(1, manager.getAllProducts().size());
+        }
+    }
+
+    @Test
+    public void editedFileIsReadAgain() throws IOException {
+        File csv = writeCsv("1,Latte,65.0\n");
+        CSVManager manager = new CSVManager(csv.getPath());
+        List<Product> before = manager.getAllProducts();
+
+        writeCsv("1,Latte,70.0\n");
+        // Same length, so only the modification time tells the edit apart
+        assertTrue(csv.setLastModified(csv.lastModified() + 2000));
+
+        List<Product> after = manager.getAllProducts();
+        assertNotSame(before, after);
+        assertEquals(7000, after.get(0).getPriceSatang());
+    }
+
+    @Test
+    public void fileThatChangedSizeIsReadAgainWithinTheSameSecond() throws IOException {
+        File csv = writeCsv("1,Latte,65.0\n");
+        CSVManager manager = new CSVManager(csv.getPath());
+        long modified = csv.lastModified();
+        manager.getAllProducts();
+
+        writeCsv("1,Latte,65.0\n2,Mocha,80.0\n");
+        assertTrue(csv.setLastModified(modified));
+
+        assertEquals(2, manager.getAllProducts().size());
+    }
+
+    @Test
+    public void invalidatedCacheIsReadAgain() throws IOException {
+        CSVManager manager = new CSVManager(writeCsv("1,Latte,65.0\n").getPath());
+        List<Product> before = manager.getAllProducts();
+
+        manager.invalidateCache();
+
+        List<Product> after = manager.getAllProducts();
+        assertNotSame(before, after);
+        assertEquals(before.size(), after.size());
+    }
+
+    @Test
+    public void exportedBinaryCatalogReplacesTheCachedCsv() throws IOException {
+        File csv = writeCsv("1,Latte,65.0\n2,Mocha,80.0\n");
+        CSVManager manager = new CSVManager(csv.getPath());
+        List<Product> fromCsv = manager.getAllProducts();
+
+        manager.exportBinaryCatalog();
+
+        List<Product> fromBinary = manager.getAllProducts();
+        assertNotSame(fromCsv, fromBinary);
+        assertEquals(2, fromBinary.size());
+        assertEquals("Mocha", fromBinary.get(1).getName());
+        assertSame(fromBinary, manager.getAllProducts());
+    }
+
+    private File writeCsv(String rows) throws IOException {
+        File csv = new File(folder.getRoot(), "products.csv");
+        try (FileWriter fw = new FileWriter(csv)) {
+            fw.write("id,name,price\n");
+            fw.write(rows);
+        }
+        return csv;
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CartTest {
+    private static final Product LATTE = new Product(1, "Latte", 55.0);
+    private static final Product MOCHA = new Product(2, "Mocha", 60.5);
+    private static final Product TEA = new Product(3, "Thai Tea", 0.1);
+
+    @Test
+    public void addingTheSameProductAgainIncreasesItsLine() {
+        Cart cart = new Cart();
+        assertEquals(0, cart.add(LATTE));
+        assertEquals(1, cart.add(MOCHA, 2));
+        assertEquals(0, cart.add(LATTE, 3));
+
+        assertEquals(2, cart.size());
+        assertEquals(4, cart.getQuantity(0));
+        assertEquals(2, cart.getQuantity(1));
+        assertEquals(6, cart.getTotalQuantity());
+        assertEquals(4 * 5500 + 2 * 6050, cart.getTotalSatang());
+    }
+
+    @Test
+    public void totalIsExactInSatang() {
+        Cart cart = new Cart();
+        for (int i = 0; i < 10; i++) {
+            cart.add(TEA);
+        }
+        assertEquals(100, cart.getTotalSatang());
+        assertEquals(1.0, cart.getTotalAmount(), 0.0);
+    }
+
+    @Test
+    public void rejectsQuantitiesBelowOne() {
+        Cart cart = new Cart();
+        for (int quantity : new int[] { 0, -1 }) {
+            try {
+                cart.add(LATTE, quantity);
+                fail("Quantity " + quantity + " was accepted");
+            } catch (IllegalArgumentException expected) {
+                // The cart must stay unchanged
+            }
+        }
+        assertTrue(cart.isEmpty());
+        assertEquals(0, cart.getTotalSatang());
+    }
+
+    @Test
+    public void decrementRemovesTheLineAtZero() {
+        Cart cart = new Cart();
+        cart.add(LATTE, 2);
+        cart.add(MOCHA);
+
+        assertEquals(0, cart.decrement(LATTE.getId()));
+        assertEquals(1, cart.getQuantity(0));
+        assertEquals(0, cart.decrement(LATTE.getId()));
+        assertFalse(cart.contains(LATTE.getId()));
+        assertEquals(0, cart.indexOf(MOCHA.getId()));
+        assertEquals(6050, cart.getTotalSatang());
+        assertEquals(-1, cart.decrement(LATTE.getId()));
+    }
+
+    @Test
+    public void removeDropsTheWholeLine() {
+        Cart cart = new Cart();
+        cart.add(LATTE, 5);
+        cart.add(MOCHA);
+
+        assertEquals(0, cart.remove(LATTE.getId()));
+        assertEquals(1, cart.size());
+        assertEquals(1, cart.getTotalQuantity());
+        assertEquals(-1, cart.remove(LATTE.getId()));
+        assertEquals(0, cart.indexOfName("Mocha"));
+        assertEquals(-1, cart.indexOfName("Latte"));
+    }
+
+    @Test
+    public void snapshotIsUnaffectedByLaterChanges() {
+        Cart cart = new Cart();
+        cart.add(LATTE);
+        Cart snapshot = cart.snapshot();
+
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        cart.decrement(LATTE.getId());
+        cart.decrement(LATTE.getId());
+
+        assertEquals(1, snapshot.size());
+        assertEquals(1, snapshot.getQuantity(0));
+        assertEquals(5500, snapshot.getTotalSatang());
+        assertEquals(1, cart.size());
+        assertEquals(MOCHA, cart.getProduct(0));
+    }
+
+    @Test
+    public void clearKeepsEarlierSnapshots() {
+        Cart cart = new Cart();
+        cart.add(LATTE, 2);
+        Cart snapshot = cart.snapshot();
+        cart.clear();
+        cart.add(MOCHA);
+
+        assertEquals(LATTE, snapshot.getProduct(0));
+        assertEquals(2, snapshot.getQuantity(0));
+        assertEquals(MOCHA, cart.getProduct(0));
+    }
+
+    @Test
+    public void snapshotIsReadOnly() {
+        Cart snapshot = new Cart().snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertSame(snapshot, snapshot.snapshot());
+        try {
+            snapshot.add(LATTE);
+            fail("Snapshot was modified");
+        } catch (UnsupportedOperationException expected) {
+            assertTrue(snapshot.isEmpty());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexesPastTheLastLine() {
+        Cart cart = new Cart();
+        cart.add(LATTE);
+        cart.getQuantity(1);
+    }
+}
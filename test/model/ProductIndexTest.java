@@ -0,0 +1,83 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ProductIndexTest {
+    private static final List<Product> CATALOG = Arrays.asList(
+            new Product(1, "Espresso", 50.0),
+            new Product(2, "Latte", 65.0),
+            new Product(3, "Cappuccino", 70.0),
+            new Product(4, "Cappuccino Freddo", 75.0),
+            new Product(5, "Iced Latte", 70.0),
+            new Product(6, "Chocolate Cake", 90.0));
+
+    @Test
+    public void matchesSubstringsIgnoringCaseInCatalogOrder() {
+        ProductIndex index = new ProductIndex(CATALOG);
+
+        assertArrayEquals(new int[] { 1, 4 }, index.filter("LATTE"));
+        assertArrayEquals(new int[] { 2, 3 }, index.filter("  cappu "));
+        assertArrayEquals(new int[] { 5 }, index.filter("ate"));
+        assertArrayEquals(new int[0], index.filter("tea"));
+        assertEquals("Iced Latte", index.get(4).getName());
+    }
+
+    @Test
+    public void emptyQueryMatchesEverything() {
+        ProductIndex index = new ProductIndex(CATALOG);
+        int[] all = { 0, 1, 2, 3, 4, 5 };
+
+        assertArrayEquals(all, index.filter(""));
+        assertArrayEquals(all, index.filter("   "));
+        assertArrayEquals(all, index.filter(null));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void typingNarrowsAndDeletingWidensAgain() {
+        ProductIndex index = new ProductIndex(CATALOG);
+
+        assertArrayEquals(new int[] { 2, 3, 4, 5 }, index.filter("c"));
+        assertArrayEquals(new int[] { 2, 3, 5 }, index.filter("ca"));
+        assertArrayEquals(new int[] { 3 }, index.filter("cappuccino f"));
+        assertArrayEquals(new int[] { 2, 3 }, index.filter("cappuccino"));
+        assertArrayEquals(new int[] { 2, 3, 4, 5 }, index.filter("c"));
+        // Not an extension of the last query, so the whole catalog is searched
+        assertArrayEquals(new int[] { 0 }, index.filter("esp"));
+        assertArrayEquals(new int[] { 1, 4, 5 }, index.filter("te"));
+        // Contains the last query without starting with it
+        assertArrayEquals(new int[] { 1, 4 }, index.filter("tTe"));
+    }
+
+    @Test
+    public void everyQuerySequenceMatchesAFreshSearch() {
+        ProductIndex index = new ProductIndex(CATALOG);
+        String[] typed = { "c", "co", "coc", "co", "", "l", "la", "lat", "t", "te", "ted", "e", "es", "o" };
+        for (String query : typed) {
+            assertArrayEquals("query '" + query + "'", bruteForce(query), index.filter(query));
+        }
+    }
+
+    private static int[] bruteForce(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < CATALOG.size(); i++) {
+            if (CATALOG.get(i).getName().toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(i);
+            }
+        }
+        int[] result = new int[matches.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = matches.get(i);
+        }
+        return result;
+    }
+}
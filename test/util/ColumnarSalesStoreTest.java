@@ -0,0 +1,164 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ColumnarSalesStoreTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 5, 1);
+    private static final int DAYS = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scansFromJournalsMatchSalesAggregates() throws IOException {
+        List<Product> products = products(40); // More ids than the dictionary's first table holds
+        List<List<Sale>> salesByDay = new ArrayList<>();
+        Random random = new Random(42);
+        SalesHistoryLoader loader = new SalesHistoryLoader(folder.getRoot().getPath());
+        for (int day = 0; day < DAYS; day++) {
+            List<Sale> sales = sales(FIRST_DAY.plusDays(day), products, 200, random);
+            salesByDay.add(sales);
+            try (SalesJournal journal = new SalesJournal(loader.getJournalFile(FIRST_DAY.plusDays(day)))) {
+                for (Sale sale : sales) {
+                    journal.append(sale);
+                }
+            }
+        }
+
+        ColumnarSalesStore store = loader.loadStore(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1));
+
+        SalesAggregates all = new SalesAggregates(FIRST_DAY);
+        SalesAggregates[] byHour = new SalesAggregates[24];
+        long[] expectedByDay = new long[DAYS];
+        int saleCount = 0;
+        for (int day = 0; day < DAYS; day++) {
+            SalesAggregates dayAggregates = new SalesAggregates(FIRST_DAY.plusDays(day));
+            for (Sale sale : salesByDay.get(day)) {
+                all.add(sale);
+                dayAggregates.add(sale);
+                int hour = sale.getSaleDateTime().getHour();
+                if (byHour[hour] == null) {
+                    byHour[hour] = new SalesAggregates(FIRST_DAY);
+                }
+                byHour[hour].add(sale);
+                saleCount++;
+            }
+            expectedByDay[day] = Math.round(dayAggregates.getTotalRevenue() * 100);
+        }
+
+        assertEquals(saleCount, store.getSaleCount());
+        assertEquals(all.getTotalItems(), store.totalQuantity());
+        assertEquals(Math.round(all.getTotalRevenue() * 100), store.totalAmount());
+
+        long[] quantities = store.sumQuantityByProduct();
+        long[] amounts = store.sumAmountByProduct();
+        for (Product product : products) {
+            int code = store.getProductCode(product.getId());
+            int expected = all.getQuantity(product.getName());
+            if (expected == 0) {
+                assertEquals(-1, code);
+                continue;
+            }
+            assertEquals(product.getName(), store.getProduct(code).getName());
+            assertEquals(product.getName(), expected, quantities[code]);
+            assertEquals(product.getName(), expected * product.getPriceSatang(), amounts[code]);
+        }
+
+        long[] hours = store.sumAmountByHour();
+        for (int hour = 0; hour < 24; hour++) {
+            long expected = byHour[hour] != null ? Math.round(byHour[hour].getTotalRevenue() * 100) : 0;
+            assertEquals("hour " + hour, expected, hours[hour]);
+        }
+
+        assertArrayEquals(expectedByDay, store.sumAmountByDay(FIRST_DAY, FIRST_DAY.plusDays(DAYS - 1)));
+        long[] window = store.sumAmountByDay(FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(DAYS));
+        assertArrayEquals(new long[] { expectedByDay[1], expectedByDay[2], 0 }, window);
+    }
+
+    @Test
+    public void journalAndSaleObjectsGiveTheSameStore() throws IOException {
+        List<Product> products = products(10);
+        List<Sale> sales = sales(FIRST_DAY, products, 50, new Random(7));
+        SalesHistoryLoader loader = new SalesHistoryLoader(folder.getRoot().getPath());
+        try (SalesJournal journal = new SalesJournal(loader.getJournalFile(FIRST_DAY))) {
+            for (Sale sale : sales) {
+                journal.append(sale);
+            }
+        }
+
+        ColumnarSalesStore fromSales = ColumnarSalesStore.of(sales);
+        ColumnarSalesStore fromJournal = new ColumnarSalesStore(4);
+        fromJournal.appendJournal(loader.getJournalFile(FIRST_DAY));
+
+        assertEquals(fromSales.getRowCount(), fromJournal.getRowCount());
+        for (int row = 0; row < fromSales.getRowCount(); row++) {
+            assertEquals(fromSales.getEpochSecond(row), fromJournal.getEpochSecond(row));
+            assertEquals(fromSales.getSaleId(row), fromJournal.getSaleId(row));
+            assertEquals(fromSales.getProduct(fromSales.getProductCodeAt(row)).getId(),
+                    fromJournal.getProduct(fromJournal.getProductCodeAt(row)).getId());
+            assertEquals(fromSales.getQuantity(row), fromJournal.getQuantity(row));
+            assertEquals(fromSales.getAmount(row), fromJournal.getAmount(row));
+        }
+    }
+
+    @Test
+    public void appendAllRenumbersSalesAndProducts() {
+        Product latte = new Product(1, "Latte", 55.0);
+        Product unknown = new Product(-3, "Old drink", 20.0); // Ids of products no longer in the catalog are negative
+        ColumnarSalesStore first = ColumnarSalesStore.of(Arrays.asList(sale(FIRST_DAY, 9, latte, 2)));
+        ColumnarSalesStore second = ColumnarSalesStore.of(Arrays.asList(sale(FIRST_DAY, 10, unknown, 1),
+                sale(FIRST_DAY, 11, latte, 1)));
+
+        first.appendAll(second);
+
+        assertEquals(3, first.getSaleCount());
+        assertEquals(2, first.getProductCount());
+        assertEquals(2, first.getSaleId(2));
+        assertArrayEquals(new long[] { 3, 1 }, first.sumQuantityByProduct());
+        assertEquals(1, first.getProductCode(-3));
+        assertEquals(-1, first.getProductCode(2));
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            products.add(new Product(i * 7 - 20, "Drink " + i, 30 + i * 2.5)); // Spread ids, some negative
+        }
+        return products;
+    }
+
+    private static List<Sale> sales(LocalDate day, List<Product> products, int count, Random random) {
+        List<Sale> sales = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Cart cart = new Cart();
+            int lines = 1 + random.nextInt(4);
+            for (int line = 0; line < lines; line++) {
+                cart.add(products.get(random.nextInt(products.size() - 5)), 1 + random.nextInt(3)); // Last 5 never sell
+            }
+            sales.add(new Sale(day.atTime(7 + random.nextInt(14), random.nextInt(60)), cart,
+                    cart.getTotalAmount(), 0, 0));
+        }
+        return sales;
+    }
+
+    private static Sale sale(LocalDate day, int hour, Product product, int quantity) {
+        Cart cart = new Cart();
+        cart.add(product, quantity);
+        return new Sale(day.atTime(hour, 0), cart, cart.getTotalAmount(), 0, 0);
+    }
+}
@@ -0,0 +1,96 @@
+package util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EdtWatchdogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void handlerIsTheChainOfApplicationMethodsOutermostFirst() {
+        StackTraceElement[] stack = {
+                frame("java.lang.Thread", "sleep"),
+                frame("view.SalesSummaryDialog", "loadSalesData"),
+                frame("view.SalesSummaryDialog", "loadSalesData"),
+                frame("view.SalesSummaryDialog", "<init>"),
+                frame("controller.POSController", "lambda$showDailySalesSummary$3"),
+                frame("controller.POSController", "showDailySalesSummary"),
+                frame("controller.POSController$$Lambda$14/0x0000000800c0b448", "actionPerformed"),
+                frame("javax.swing.AbstractButton", "fireActionPerformed"),
+                frame("java.awt.EventDispatchThread", "run"),
+        };
+        assertEquals("POSController.showDailySalesSummary > SalesSummaryDialog.<init>"
+                + " > SalesSummaryDialog.loadSalesData", EdtWatchdog.handlerOf(stack));
+    }
+
+    @Test
+    public void defaultPackageClassesCountAsApplicationCode() {
+        StackTraceElement[] stack = {
+                frame("java.lang.Object", "wait"),
+                frame("Main", "main"),
+        };
+        assertEquals("Main.main", EdtWatchdog.handlerOf(stack));
+    }
+
+    @Test
+    public void innermostFrameNamesAStallOutsideTheApplication() {
+        StackTraceElement[] stack = {
+                frame("sun.java2d.loops.Blit", "Blit"),
+                frame("javax.swing.RepaintManager", "paint"),
+                frame("java.awt.EventDispatchThread", "run"),
+        };
+        assertEquals("sun.java2d.loops.Blit.Blit", EdtWatchdog.handlerOf(stack));
+        assertEquals("unknown", EdtWatchdog.handlerOf(new StackTraceElement[0]));
+    }
+
+    @Test
+    public void recordsARealStallOfTheEventDispatchThread() throws Exception {
+        File log = new File(folder.getRoot(), "edt-stalls.log");
+        EdtWatchdog watchdog = new EdtWatchdog(50, log);
+        EventQueue.invokeAndWait(watchdog::start); // Knows the EDT before its first probe
+        try {
+            EventQueue.invokeAndWait(EdtWatchdogTest::blockTheEventDispatchThread);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (watchdog.getStatsByHandler().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            watchdog.stop();
+        }
+
+        List<EdtWatchdog.HandlerStats> stats = watchdog.getStatsByHandler();
+        assertEquals(1, stats.size());
+        assertEquals("EdtWatchdogTest.blockTheEventDispatchThread", stats.get(0).getHandler());
+        assertEquals(1, stats.get(0).getCount());
+        assertTrue(stats.get(0).getMaxMillis() >= 50);
+        assertEquals(1, watchdog.getRecentStalls().size());
+
+        String logged = new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8);
+        assertTrue(logged, logged.contains("in EdtWatchdogTest.blockTheEventDispatchThread"));
+        assertTrue(logged, logged.contains("util.EdtWatchdogTest.blockTheEventDispatchThread(EdtWatchdogTest.java"));
+    }
+
+    private static void blockTheEventDispatchThread() {
+        try {
+            Thread.sleep(600);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static StackTraceElement frame(String className, String methodName) {
+        return new StackTraceElement(className, methodName, null, -1);
+    }
+}
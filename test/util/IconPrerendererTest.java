@@ -0,0 +1,144 @@
+package util;
+
+import model.Product;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IconPrerendererTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesTheAtlasAfterRendering() throws Exception {
+        List<Product> products = products("render");
+        IconAtlas atlas = atlas("first");
+        IconPrerenderer prerenderer = new IconPrerenderer(atlas, 2, 50);
+        try {
+            prerenderer.prerender(products);
+            waitFor(() -> atlasHolds(atlas, products));
+            assertEquals(products.size(), prerenderer.getRenderedCount());
+        } finally {
+            prerenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void writesTheAtlasWhenEveryIconWasAlreadyCached() throws Exception {
+        List<Product> products = products("cached");
+        for (Product product : products) {
+            IconManager.getProductIcon(product.getName());
+        }
+        IconAtlas atlas = atlas("cached");
+        IconPrerenderer prerenderer = new IconPrerenderer(atlas, 1, 50);
+        try {
+            prerenderer.prerender(products);
+            waitFor(() -> atlasHolds(atlas, products));
+            assertEquals(0, prerenderer.getRenderedCount());
+        } finally {
+            prerenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void addsIconsRenderedOnDemandToTheAtlas() throws Exception {
+        List<Product> products = products("demand");
+        IconAtlas atlas = atlas("demand");
+        IconPrerenderer prerenderer = new IconPrerenderer(atlas, 1, 50);
+        try {
+            prerenderer.prerender(products.subList(0, 2));
+            waitFor(() -> atlasHolds(atlas, products.subList(0, 2)));
+
+            prerenderer.request(products.get(2)); // Scrolled into view later
+            waitFor(() -> atlasHolds(atlas, products));
+        } finally {
+            prerenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsIconsRenderedOnDemandAcrossRestarts() throws Exception {
+        List<Product> products = products("restart");
+        IconAtlas atlas = atlas("restart");
+        IconPrerenderer firstRun = new IconPrerenderer(atlas, 1, 50);
+        try {
+            firstRun.prerender(products.subList(0, 1));
+            waitFor(() -> atlasHolds(atlas, products.subList(0, 1)));
+            firstRun.request(products.get(2));
+            waitFor(() -> atlasHolds(atlas, Arrays.asList(products.get(0), products.get(2))));
+        } finally {
+            firstRun.shutdown();
+        }
+
+        // The next start has a product to render, so the atlas is rewritten
+        IconPrerenderer secondRun = new IconPrerenderer(atlas, 1, 50);
+        try {
+            secondRun.prerender(products.subList(0, 2));
+            waitFor(() -> atlasHolds(atlas, products));
+        } finally {
+            secondRun.shutdown();
+        }
+    }
+
+    @Test
+    public void loadsEveryCurrentIconInTheAtlas() throws Exception {
+        List<Product> products = products("load");
+        IconAtlas atlas = atlas("load");
+        List<String> names = new ArrayList<>();
+        for (Product product : products) {
+            IconManager.getProductIcon(product.getName());
+            names.add(product.getName());
+        }
+        assertEquals(3, atlas.save(names));
+        assertEquals(names, atlas.load());
+
+        assertTrue(atlas("missing").load().isEmpty());
+    }
+
+    private IconAtlas atlas(String name) {
+        return new IconAtlas(new File(folder.getRoot(), name + ".png"), new File(folder.getRoot(), name + ".idx"));
+    }
+
+    // Unique names, so icons cached by other tests do not count
+    private static List<Product> products(String prefix) {
+        return Arrays.asList(new Product(1, prefix + " latte", 55.0), new Product(2, prefix + " mocha", 60.0),
+                new Product(3, prefix + " tea", 40.0));
+    }
+
+    private static boolean atlasHolds(IconAtlas atlas, List<Product> products) {
+        try {
+            List<String> loaded = atlas.load();
+            for (Product product : products) {
+                if (!loaded.contains(product.getName())) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false; // Caught in the middle of a rewrite
+        }
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.holds()) {
+            assertTrue("Timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+}
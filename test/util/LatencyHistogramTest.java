@@ -0,0 +1,102 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void everyBucketCoversExactlyTheValuesBetweenItsBounds() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long lower = LatencyHistogram.bucketLowerBoundNanos(bucket);
+            long upper = LatencyHistogram.bucketUpperBoundNanos(bucket);
+            assertTrue("bucket " + bucket + " is empty", lower < upper);
+            assertEquals("lower bound of " + bucket, bucket, LatencyHistogram.bucketIndex(lower));
+            assertEquals("last value of " + bucket, bucket, LatencyHistogram.bucketIndex(upper - 1));
+            if (bucket + 1 < LatencyHistogram.BUCKETS) {
+                assertEquals("first value after " + bucket, bucket + 1, LatencyHistogram.bucketIndex(upper));
+            }
+            if (lower >= 32) {
+                assertTrue("bucket " + bucket + " is wider than 1/16 of its values",
+                        (upper - lower) * 16 <= lower);
+            }
+        }
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS + 1,
+                LatencyHistogram.bucketUpperBoundNanos(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void everyPowerOfTwoStartsABucket() {
+        // The metrics server exports powers of two as cumulative bucket bounds
+        for (int power = 0; power <= 40; power++) {
+            long value = 1L << power;
+            int bucket = LatencyHistogram.bucketIndex(value);
+            assertEquals("2^" + power, value, LatencyHistogram.bucketLowerBoundNanos(bucket));
+        }
+    }
+
+    @Test
+    public void valuesAtAndAboveTheLimitCountInTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram("limit");
+        histogram.record(LatencyHistogram.MAX_TRACKABLE_NANOS);
+        histogram.record(LatencyHistogram.MAX_TRACKABLE_NANOS + 1);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        int last = LatencyHistogram.BUCKETS - 1;
+        assertEquals(last, LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_NANOS));
+        assertEquals(3, histogram.getBucketCount(last));
+        assertEquals(1, histogram.getBucketCount(0));
+        assertEquals(4, histogram.getCount());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getMaxNanos());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getPercentileNanos(1.0));
+    }
+
+    @Test
+    public void percentilesAreExactWhereEachValueHasItsOwnBucket() {
+        LatencyHistogram histogram = new LatencyHistogram("linear");
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10, histogram.getPercentileNanos(0.5));
+        assertEquals(19, histogram.getPercentileNanos(0.95));
+        assertEquals(20, histogram.getPercentileNanos(1.0));
+        assertEquals(1, histogram.getPercentileNanos(0.0));
+        assertEquals(10, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void percentilesAreWithinOneBucketOfTheTrueValue() {
+        LatencyHistogram histogram = new LatencyHistogram("micros");
+        // 1µs to 1ms in 1µs steps, so the p-th percentile is p * 1ms
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        double[] fractions = {0.1, 0.5, 0.9, 0.99};
+        for (double fraction : fractions) {
+            long expected = Math.round(fraction * 1000) * 1000;
+            long actual = histogram.getPercentileNanos(fraction);
+            assertTrue(fraction + ": " + actual + " < " + expected, actual >= expected);
+            assertTrue(fraction + ": " + actual + " too far above " + expected,
+                    actual <= expected + expected / 16);
+        }
+        assertEquals(1_000_000, histogram.getPercentileNanos(1.0));
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500_000, histogram.getTotalNanos());
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("empty");
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+        assertEquals(0, histogram.getMeanNanos());
+
+        histogram.record(1234);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(0.5));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+}
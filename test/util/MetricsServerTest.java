@@ -0,0 +1,253 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsServerTest {
+    private static final String OPERATION = "metrics-test";
+
+    // metric_name{label="value",...} number
+    private static final Pattern SAMPLE = Pattern.compile(
+            "([a-zA-Z_:][a-zA-Z0-9_:]*)(\\{(?:[a-zA-Z_][a-zA-Z0-9_]*=\"(?:\\\\.|[^\"\\\\])*\",?)*\\})? "
+                    + "(-?[0-9]+(?:\\.[0-9]+)?(?:[eE][-+]?[0-9]+)?)");
+    private static final Pattern BUCKET = Pattern.compile(
+            "pos_latency_seconds_bucket\\{op=\"" + OPERATION + "\",le=\"([^\"]+)\"\\} ([0-9]+)");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SalesTracker tracker;
+    private MetricsServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        tracker = new SalesTracker(folder.getRoot().getPath());
+        server = new MetricsServer(tracker, 0);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+        tracker.close();
+    }
+
+    @Test
+    public void metricsAreValidPrometheusText() throws IOException {
+        Cart cart = new Cart();
+        cart.add(new Product(1, "Latte \"XL\"", 65.0), 2);
+        tracker.recordSale(cart, 130.0, 200.0, 70.0);
+
+        String body = get("/metrics");
+        int samples = 0;
+        for (String line : body.split("\n")) {
+            if (line.startsWith("#")) {
+                assertTrue(line, line.startsWith("# HELP ") || line.startsWith("# TYPE "));
+            } else {
+                assertTrue("Not a sample: " + line, SAMPLE.matcher(line).matches());
+                samples++;
+            }
+        }
+        assertTrue(samples > 0);
+        assertTrue(body, body.contains("pos_sales_transactions 1\n"));
+        assertTrue(body, body.contains("pos_product_quantity{product=\"Latte \\\"XL\\\"\"} 2\n"));
+    }
+
+    @Test
+    public void cumulativeBucketsNeverDecreaseAndEndAtTheCount() throws IOException {
+        LatencyHistogram histogram = LatencyHistogram.named(OPERATION);
+        histogram.reset();
+        histogram.record(500); // Below the first exported bound
+        histogram.record(1000);
+        histogram.record(3_000_000);
+        histogram.record(100_000_000_000L); // Above the last exported bound
+
+        String body = get("/metrics");
+        List<Long> cumulative = new ArrayList<>();
+        long infinite = -1;
+        Matcher bucket = BUCKET.matcher(body);
+        while (bucket.find()) {
+            long value = Long.parseLong(bucket.group(2));
+            if (bucket.group(1).equals("+Inf")) {
+                infinite = value;
+            } else {
+                cumulative.add(value);
+            }
+        }
+        assertEquals(26, cumulative.size());
+        for (int i = 1; i < cumulative.size(); i++) {
+            assertTrue("bucket " + i + " decreased: " + cumulative, cumulative.get(i) >= cumulative.get(i - 1));
+        }
+        assertEquals(2, (long) cumulative.get(0)); // le 2^10ns holds 500ns and 1000ns
+        assertEquals(3, (long) cumulative.get(cumulative.size() - 1));
+        assertEquals(4, infinite);
+        assertTrue(body, body.contains("pos_latency_seconds_count{op=\"" + OPERATION + "\"} 4\n"));
+    }
+
+    @Test
+    public void jsonIsWellFormed() throws IOException {
+        Cart cart = new Cart();
+        cart.add(new Product(1, "ชา \"เย็น\"\\", 45.0), 3);
+        tracker.recordSale(cart, 135.0, 135.0, 0);
+        LatencyHistogram.named(OPERATION).record(2_000_000);
+
+        String body = get("/metrics.json");
+        new JsonChecker(body.trim()).checkDocument();
+        assertTrue(body, body.contains("\"transactions\":1"));
+        assertTrue(body, body.contains("\"name\":\"ชา \\\"เย็น\\\"\\\\\""));
+    }
+
+    @Test
+    public void onlyGetIsAllowed() throws IOException {
+        HttpURLConnection connection = open("/metrics");
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.getOutputStream().close();
+        assertEquals(405, connection.getResponseCode());
+        connection.disconnect();
+
+        assertEquals(404, open("/metrics/other").getResponseCode());
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        URL url = new URL("http", "127.0.0.1", server.getPort(), path);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        try {
+            assertEquals(200, connection.getResponseCode());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Just enough of a JSON parser to reject anything malformed
+    private static class JsonChecker {
+        private final String text;
+        private int position;
+
+        JsonChecker(String text) {
+            this.text = text;
+        }
+
+        void checkDocument() {
+            value();
+            if (position != text.length()) {
+                fail("Trailing text at " + position + ": " + text);
+            }
+        }
+
+        private void value() {
+            char c = peek();
+            if (c == '{') {
+                members('}', true);
+            } else if (c == '[') {
+                members(']', false);
+            } else if (c == '"') {
+                string();
+            } else if (text.startsWith("true", position) || text.startsWith("null", position)) {
+                position += 4;
+            } else if (text.startsWith("false", position)) {
+                position += 5;
+            } else {
+                number();
+            }
+        }
+
+        private void members(char close, boolean named) {
+            position++;
+            if (peek() == close) {
+                position++;
+                return;
+            }
+            while (true) {
+                if (named) {
+                    string();
+                    expect(':');
+                }
+                value();
+                if (peek() == close) {
+                    position++;
+                    return;
+                }
+                expect(',');
+            }
+        }
+
+        private void string() {
+            expect('"');
+            while (true) {
+                char c = peek();
+                position++;
+                if (c == '"') {
+                    return;
+                } else if (c == '\\') {
+                    char escaped = peek();
+                    position++;
+                    if (escaped == 'u') {
+                        Integer.parseInt(text.substring(position, position + 4), 16);
+                        position += 4;
+                    } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                        fail("Bad escape at " + position + ": " + text);
+                    }
+                } else if (c < 0x20) {
+                    fail("Control character at " + position + ": " + text);
+                }
+            }
+        }
+
+        private void number() {
+            Matcher number = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][-+]?[0-9]+)?")
+                    .matcher(text).region(position, text.length());
+            if (!number.lookingAt()) {
+                fail("Expected a value at " + position + ": " + text);
+            }
+            position = number.end();
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                fail("Expected '" + c + "' at " + position + ": " + text);
+            }
+            position++;
+        }
+
+        private char peek() {
+            if (position >= text.length()) {
+                fail("Unexpected end of JSON: " + text);
+            }
+            return text.charAt(position);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrintSpoolerTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void printsJobsInOrderAndDeletesTheirFiles() throws Exception {
+        FilePrintDevice device = new FilePrintDevice(folder.newFile("printer.txt"));
+        File queue = folder.newFolder("queue");
+        PrintSpooler spooler = new PrintSpooler(queue, device);
+        try {
+            long first = spooler.submit("R-1", "first\n");
+            long second = spooler.submit("R-2", "second");
+            awaitState(spooler, second, PrintSpooler.State.PRINTED);
+
+            assertEquals(PrintSpooler.State.PRINTED, spooler.getStatus(first).getState());
+            assertEquals("----- R-1 -----\nfirst\n----- R-2 -----\nsecond\n", read(device.getFile()));
+            assertEquals(2, spooler.getPrintedCount());
+            assertEquals(0, spooler.getPendingCount());
+            assertEquals(0, jobFiles(queue).length);
+        } finally {
+            spooler.shutdown();
+        }
+    }
+
+    @Test
+    public void retriesAFailedJobAndKeepsLaterOnesBehindIt() throws Exception {
+        FilePrintDevice device = new FilePrintDevice(folder.newFile("printer.txt"));
+        device.setOffline(true);
+        PrintSpooler spooler = new PrintSpooler(folder.newFolder("queue"), device);
+        try {
+            long first = spooler.submit("R-1", "first");
+            long second = spooler.submit("R-2", "second");
+            awaitState(spooler, first, PrintSpooler.State.RETRYING);
+
+            PrintSpooler.JobStatus status = spooler.getStatus(first);
+            assertEquals("Printer offline", status.getLastError());
+            assertEquals(PrintSpooler.State.QUEUED, spooler.getStatus(second).getState());
+            assertEquals(2, spooler.getPendingCount());
+
+            device.setOffline(false);
+            spooler.retryNow();
+            awaitState(spooler, second, PrintSpooler.State.PRINTED);
+
+            assertTrue(spooler.getStatus(first).getAttempts() >= 2);
+            assertTrue(spooler.getFailedAttempts() >= 1);
+            assertEquals("----- R-1 -----\nfirst\n----- R-2 -----\nsecond\n", read(device.getFile()));
+        } finally {
+            spooler.shutdown();
+        }
+    }
+
+    @Test
+    public void pendingJobsArePrintedAfterARestart() throws Exception {
+        File queue = folder.newFolder("queue");
+        FilePrintDevice offline = new FilePrintDevice(folder.newFile("offline.txt"));
+        offline.setOffline(true);
+        PrintSpooler spooler = new PrintSpooler(queue, offline);
+        spooler.submit("R-1", "first");
+        spooler.submit("R-2", "second\nline");
+        spooler.shutdown();
+        assertEquals(2, jobFiles(queue).length);
+
+        FilePrintDevice device = new FilePrintDevice(folder.newFile("printer.txt"));
+        PrintSpooler restarted = new PrintSpooler(queue, device);
+        try {
+            assertEquals(2, restarted.getJobs().size());
+            long third = restarted.submit("R-3", "third");
+            assertEquals(3, third); // Ids continue after the recovered jobs
+            awaitState(restarted, third, PrintSpooler.State.PRINTED);
+
+            assertEquals("----- R-1 -----\nfirst\n----- R-2 -----\nsecond\nline\n----- R-3 -----\nthird\n",
+                    read(device.getFile()));
+            assertEquals(0, jobFiles(queue).length);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    public void unfinishedJobFilesAreDiscardedOnRestart() throws Exception {
+        File queue = folder.newFolder("queue");
+        Files.write(new File(queue, "0000000001.job.tmp").toPath(), "R-1\nhalf".getBytes(StandardCharsets.UTF_8));
+
+        PrintSpooler spooler = new PrintSpooler(queue, new FilePrintDevice(folder.newFile("printer.txt")));
+        try {
+            assertEquals(0, spooler.getPendingCount());
+            assertFalse(new File(queue, "0000000001.job.tmp").exists());
+        } finally {
+            spooler.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelledJobsAreNeverPrinted() throws Exception {
+        FilePrintDevice device = new FilePrintDevice(folder.newFile("printer.txt"));
+        device.setOffline(true);
+        File queue = folder.newFolder("queue");
+        PrintSpooler spooler = new PrintSpooler(queue, device);
+        try {
+            long first = spooler.submit("R-1", "first");
+            long second = spooler.submit("R-2", "second");
+            awaitState(spooler, first, PrintSpooler.State.RETRYING);
+
+            assertTrue(spooler.cancel(second));
+            assertTrue(spooler.cancel(first));
+            assertFalse(spooler.cancel(first));
+            assertEquals(PrintSpooler.State.CANCELLED, spooler.getStatus(second).getState());
+            assertEquals(0, spooler.getPendingCount());
+            assertEquals(0, jobFiles(queue).length);
+
+            device.setOffline(false);
+            long third = spooler.submit("R-3", "third");
+            awaitState(spooler, third, PrintSpooler.State.PRINTED);
+            assertEquals("----- R-3 -----\nthird\n", read(device.getFile()));
+        } finally {
+            spooler.shutdown();
+        }
+    }
+
+    @Test
+    public void backoffDoublesUpToAMinute() {
+        assertEquals(1000, PrintSpooler.backoffMillis(1));
+        assertEquals(2000, PrintSpooler.backoffMillis(2));
+        assertEquals(4000, PrintSpooler.backoffMillis(3));
+        assertEquals(60_000, PrintSpooler.backoffMillis(8));
+        assertEquals(60_000, PrintSpooler.backoffMillis(1000));
+    }
+
+    private static void awaitState(PrintSpooler spooler, long id, PrintSpooler.State state)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (spooler.getStatus(id).getState() != state) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Job " + id + " is " + spooler.getStatus(id) + ", expected " + state);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static File[] jobFiles(File queue) {
+        return queue.listFiles((dir, name) -> name.endsWith(".job"));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
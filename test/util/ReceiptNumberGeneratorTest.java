@@ -0,0 +1,163 @@
+package util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReceiptNumberGeneratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void formatsNumbersWithTheTerminalId() throws IOException {
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(stateFile(), "02", 10);
+        assertEquals("POS02-000001", generator.next());
+        assertEquals("POS02-000002", generator.next());
+        assertEquals("POS02-1234567", generator.format(1234567));
+        assertEquals("02", generator.getTerminalId());
+    }
+
+    @Test
+    public void tillsWithoutATerminalIdGetDifferentOnesThatStick() throws IOException {
+        File first = stateFile();
+        File second = new File(folder.newFolder(), "receipt_numbers.properties");
+        String firstId = new ReceiptNumberGenerator(first, null, 10).getTerminalId();
+        String secondId = new ReceiptNumberGenerator(second, null, 10).getTerminalId();
+
+        assertTrue(firstId, firstId.matches("[0-9A-F]{6}"));
+        assertNotEquals(firstId, secondId);
+        assertEquals(firstId, new ReceiptNumberGenerator(first, null, 10).getTerminalId());
+        assertEquals(firstId, new ReceiptNumberGenerator(first, "", 10).getTerminalId());
+        assertEquals("07", new ReceiptNumberGenerator(first, "07", 10).getTerminalId());
+        assertEquals("07", new ReceiptNumberGenerator(first, null, 10).getTerminalId());
+    }
+
+    @Test
+    public void cleanRestartContinuesWithoutAGap() throws IOException {
+        File file = stateFile();
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(file, "01", 10);
+        for (int i = 0; i < 15; i++) {
+            generator.nextNumber();
+        }
+        generator.close();
+
+        ReceiptNumberGenerator restarted = new ReceiptNumberGenerator(file, "01", 10);
+        assertEquals(16, restarted.nextNumber());
+        assertEquals(restarted.getGapStart(), restarted.getGapEnd());
+    }
+
+    @Test
+    public void numbersAreNeverReusedAfterACrash() throws Exception {
+        File file = stateFile();
+        Set<Long> issued = new HashSet<>();
+        for (int run = 0; run < 5; run++) {
+            // No close(): each run ends like a crash
+            ReceiptNumberGenerator generator = new ReceiptNumberGenerator(file, "01", 10);
+            long last = 0;
+            for (int i = 0; i < 23; i++) {
+                last = generator.nextNumber();
+                assertTrue("Repeated " + last + " in run " + run, issued.add(last));
+            }
+            generator.awaitReservations(); // A dead process writes nothing more
+
+            // The reported gap covers the unused rest of the reservation
+            ReceiptNumberGenerator restarted = new ReceiptNumberGenerator(file, "01", 10);
+            assertTrue(restarted.getGapStart() <= last + 1);
+            assertTrue(restarted.getGapEnd() > last);
+        }
+        assertEquals(5 * 23, issued.size());
+    }
+
+    @Test
+    public void reservesTheNextBlockBeforeTheCurrentOneRunsOut() throws Exception {
+        File file = stateFile();
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(file, "01", 100);
+        generator.nextNumber();
+        assertEquals(101, savedLimit(file));
+
+        for (int i = 2; i <= 80; i++) {
+            generator.nextNumber();
+        }
+        generator.awaitReservations();
+        assertEquals(201, savedLimit(file));
+    }
+
+    @Test
+    public void concurrentCheckoutsGetUniqueNumbers() throws Exception {
+        File file = stateFile();
+        ReceiptNumberGenerator generator = new ReceiptNumberGenerator(file, "01", 7);
+        int threads = 4;
+        int perThread = 1000;
+        List<List<Long>> results = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            List<Long> numbers = new ArrayList<>(perThread);
+            results.add(numbers);
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    numbers.add(generator.nextNumber());
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        generator.awaitReservations();
+
+        Set<Long> unique = new HashSet<>();
+        long max = 0;
+        for (List<Long> numbers : results) {
+            for (long number : numbers) {
+                unique.add(number);
+                max = Math.max(max, number);
+            }
+        }
+        assertEquals(threads * perThread, unique.size());
+        assertTrue(savedLimit(file) > max);
+    }
+
+    @Test
+    public void unreadableStateSkipsPastAnythingIssued() throws IOException {
+        File file = stateFile();
+        Files.write(file.toPath(), "next=oops\n".getBytes(StandardCharsets.UTF_8));
+        long number = new ReceiptNumberGenerator(file, "01", 10).nextNumber();
+        assertTrue(number >= System.currentTimeMillis() / 1000 - 60);
+    }
+
+    private File stateFile() throws IOException {
+        return new File(folder.newFolder(), "receipt_numbers.properties");
+    }
+
+    private static long savedLimit(File file) throws IOException {
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            state.load(in);
+        }
+        return Long.parseLong(state.getProperty("limit"));
+    }
+}
@@ -0,0 +1,113 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReceiptTemplateTest {
+    private static final Product LATTE = new Product(1, "Latte", 55.0);
+    private static final Product LONG_NAME = new Product(2, "Caramel Macchiato Grande", 95.5);
+
+    private static ReceiptPrinter receipt() {
+        Cart cart = new Cart();
+        cart.add(LATTE, 2);
+        cart.add(LONG_NAME);
+        return new ReceiptPrinter(cart, 205.5, 300.0, 94.5, "01-000042");
+    }
+
+    private static String render(String layout, int width, ReceiptPrinter receipt) {
+        StringBuilder out = new StringBuilder();
+        ReceiptTemplate.compile(layout, width).render(receipt, out);
+        return out.toString();
+    }
+
+    @Test
+    public void rulesAndCenteredLinesFillTheWidth() {
+        assertEquals("----------\n   ABCD\n", render("@rule -\n@center ABCD\n", 10, receipt()));
+    }
+
+    @Test
+    public void centeredTextWiderThanTheReceiptIsNotPadded() {
+        assertEquals("TOO WIDE TEXT\n", render("@center TOO WIDE TEXT", 5, receipt()));
+    }
+
+    @Test
+    public void rendersTotalsAsBahtWithTwoDecimals() {
+        assertEquals("#01-000042 items 3 total 205.50 cash 300.00 change 94.50\n",
+                render("#{receiptNumber} items {totalItems} total {total} cash {received} change {change}\n",
+                        40, receipt()));
+    }
+
+    @Test
+    public void itemLinesRepeatPerCartLineWithAlignment() {
+        String layout = "@items\n{item.name:<12}|{item.qty:>3}|{item.price:>7}|{item.total:>7}\n@end\n";
+        assertEquals(
+                "Latte       |  2|  55.00| 110.00\n" +
+                "Caramel M...|  1|  95.50|  95.50\n",
+                render(layout, 40, receipt()));
+    }
+
+    @Test
+    public void emptyCartRendersNoItemLines() {
+        ReceiptPrinter empty = new ReceiptPrinter(new Cart(), 0, 0, 0, "01-000001");
+        assertEquals("A\nB\n", render("A\n@items\n{item.name}\n@end\nB\n", 10, empty));
+    }
+
+    @Test
+    public void dateIsTheSaleTime() {
+        ReceiptPrinter receipt = receipt();
+        StringBuilder expected = new StringBuilder();
+        ReceiptTemplate.appendDateTime(receipt.getSaleDateTime(), expected);
+        assertEquals(expected + "\n", render("{date}", 30, receipt));
+    }
+
+    @Test
+    public void formatsMoneyAndDates() {
+        StringBuilder out = new StringBuilder();
+        ReceiptTemplate.appendMoney(4550, out);
+        out.append(' ');
+        ReceiptTemplate.appendMoney(5, out);
+        out.append(' ');
+        ReceiptTemplate.appendMoney(-120, out);
+        out.append(' ');
+        ReceiptTemplate.appendDateTime(LocalDateTime.of(2025, 3, 7, 9, 5, 1), out);
+        assertEquals("45.50 0.05 -1.20 07/03/2025 09:05:01", out.toString());
+    }
+
+    @Test
+    public void matchesTheReceiptPrinterOutput() {
+        String content = receipt().getReceiptContent();
+        assertTrue(content, content.contains("Receipt#: 01-000042\n"));
+        assertTrue(content, content.contains("Latte                    2    55.00       110.00\n"));
+        assertTrue(content, content.contains("TOTAL: ฿205.50\n"));
+    }
+
+    @Test
+    public void rejectsBadLayouts() {
+        assertRejected("{nope}", "line 1: unknown field 'nope'");
+        assertRejected("ok\n{item.name}", "line 2: 'item.name' outside @items");
+        assertRejected("{total", "unclosed {");
+        assertRejected("{total:=5}", "bad format '=5'");
+        assertRejected("{total:>x}", "bad width '>x'");
+        assertRejected("@items\n@items", "nested @items");
+        assertRejected("@end", "@end without @items");
+        assertRejected("@items\n{item.qty}", "@items without @end");
+        assertRejected("ok\n@rule ", "line 2: @rule takes one character");
+        assertRejected("@rule ==", "line 1: @rule takes one character");
+    }
+
+    private static void assertRejected(String layout, String message) {
+        try {
+            ReceiptTemplate.compile(layout, 20);
+            fail("Accepted " + layout);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
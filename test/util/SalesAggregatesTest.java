@@ -0,0 +1,53 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SalesAggregatesTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+    private static final Product LATTE = new Product(1, "Latte", 65.0);
+    private static final Product MOCHA = new Product(2, "Mocha", 80.0);
+
+    @Test
+    public void ranksBestSellersPerHour() {
+        SalesAggregates aggregates = new SalesAggregates(DAY);
+        aggregates.add(sale(9, LATTE, 2));
+        aggregates.add(sale(9, MOCHA, 3));
+        aggregates.add(sale(14, LATTE, 4));
+
+        Map.Entry<String, Integer> nineOClock = aggregates.getTopSellers(9, 1).get(0);
+        assertEquals("Mocha", nineOClock.getKey());
+        assertEquals(3, (int) nineOClock.getValue());
+        assertEquals("Latte", aggregates.getTopSellers(14, 5).get(0).getKey());
+        assertTrue(aggregates.getTopSellers(23, 5).isEmpty());
+        assertEquals("Latte", aggregates.getTopSellers(1).get(0).getKey());
+    }
+
+    @Test
+    public void rejectsAnHourOutsideTheDay() {
+        SalesAggregates aggregates = new SalesAggregates(DAY);
+        for (int hour : new int[] { -1, 24 }) {
+            try {
+                aggregates.getTopSellers(hour, 5);
+                fail("Hour " + hour + " accepted");
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains(Integer.toString(hour)));
+            }
+        }
+    }
+
+    private static Sale sale(int hour, Product product, int quantity) {
+        Cart cart = new Cart();
+        cart.add(product, quantity);
+        return new Sale(DAY.atTime(hour, 0), cart, cart.getTotalAmount(), 0, 0);
+    }
+}
@@ -0,0 +1,104 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SalesHistoryLoaderTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+    private static final Product LATTE = new Product(1, "ลาเต้", 55.0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SalesHistoryLoader loader;
+
+    @Before
+    public void setUp() {
+        loader = new SalesHistoryLoader(folder.getRoot().getPath());
+        loader.setProductCatalog(Arrays.asList(LATTE));
+    }
+
+    @Test
+    public void mergesTheTextFileAndTheJournalOfTheUpgradeDay() throws IOException {
+        writeLegacy(DAY, legacySale("09:00:00", 55.0, "ลาเต้", 1) + legacySale("10:30:00", 110.0, "ลาเต้", 2));
+        Cart cart = new Cart();
+        cart.add(LATTE);
+        try (SalesJournal journal = new SalesJournal(loader.getJournalFile(DAY))) {
+            journal.append(new Sale(DAY.atTime(10, 0), cart, 55.0, 0, 0));
+            journal.append(new Sale(DAY.atTime(11, 0), cart, 55.0, 0, 0));
+        }
+
+        List<Sale> sales = loader.loadDay(DAY);
+        assertEquals(4, sales.size());
+        int[] hours = { 9, 10, 10, 11 };
+        for (int i = 0; i < hours.length; i++) {
+            assertEquals(hours[i], sales.get(i).getSaleDateTime().getHour());
+        }
+        assertEquals(2, sales.get(2).getCart().getQuantity(0));
+    }
+
+    @Test
+    public void unknownProductsKeepTheUnaccountedPartOfTheTotal() throws IOException {
+        writeLegacy(DAY, "=== การขาย ณ เวลา 09:00:00 ===\n"
+                + "รายการสินค้า:\n"
+                + "  - ลาเต้ จำนวน 1 แก้ว\n"
+                + "  - ชาเขียวเก่า จำนวน 2 แก้ว\n"
+                + "ยอดรวม: ฿135.00\n"
+                + "เงินที่รับ: ฿200.00\n"
+                + "เงินทอน: ฿65.00\n"
+                + "------------------------------------------------\n\n");
+
+        Cart cart = loader.loadDay(DAY).get(0).getCart();
+        assertEquals(13500, cart.getTotalSatang());
+        int unknown = cart.indexOfName("ชาเขียวเก่า");
+        assertTrue(cart.getProductId(unknown) < 0);
+        assertEquals(4000, cart.getProduct(unknown).getPriceSatang());
+        assertEquals(8000, cart.getLineTotalSatang(unknown));
+    }
+
+    @Test
+    public void loadsARangeInOrder() throws IOException {
+        for (int day = 0; day < 5; day++) {
+            writeLegacy(DAY.plusDays(day), legacySale("12:00:00", 55.0, "ลาเต้", 1));
+        }
+        List<Sale> sales = loader.loadRange(DAY, DAY.plusDays(6));
+        assertEquals(5, sales.size());
+        for (int day = 0; day < 5; day++) {
+            assertEquals(DAY.plusDays(day), sales.get(day).getSaleDateTime().toLocalDate());
+        }
+    }
+
+    @Test
+    public void dayWithoutFilesIsEmpty() throws IOException {
+        assertTrue(loader.loadDay(DAY).isEmpty());
+    }
+
+    private static String legacySale(String time, double total, String name, int quantity) {
+        return "=== การขาย ณ เวลา " + time + " ===\n"
+                + "รายการสินค้า:\n"
+                + "  - " + name + " จำนวน " + quantity + " แก้ว\n"
+                + String.format("ยอดรวม: ฿%.2f\n", total)
+                + "เงินที่รับ: ฿0.00\n"
+                + "เงินทอน: ฿0.00\n"
+                + "------------------------------------------------\n\n";
+    }
+
+    private void writeLegacy(LocalDate date, String text) throws IOException {
+        Files.write(loader.getLegacyFile(date).toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,209 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SalesJournalTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysWhatWasAppended() throws IOException {
+        File file = folder.newFile("daily_sales_2024-05-01.bin");
+        writeSales(file, 3);
+
+        List<Sale> sales = SalesJournal.readSales(file);
+        assertEquals(3, sales.size());
+        for (int i = 0; i < 3; i++) {
+            Sale sale = sales.get(i);
+            assertEquals(START.plusMinutes(i), sale.getSaleDateTime());
+            assertEquals(55.0 * (i + 1) + 60.5, sale.getTotalAmount(), 0.0);
+            assertEquals(2, sale.getCart().size());
+            assertEquals("ลาเต้", sale.getCart().getProduct(0).getName());
+            assertEquals(i + 1, sale.getCart().getQuantity(0));
+            assertEquals(6050, sale.getCart().getProduct(1).getPriceSatang());
+        }
+    }
+
+    @Test
+    public void keepsTheReceiptNumberWhenThereIsOne() throws IOException {
+        File file = folder.newFile("journal.bin");
+        Cart cart = new Cart();
+        cart.add(new Product(1, "Latte", 55.0));
+        try (SalesJournal journal = new SalesJournal(file)) {
+            journal.append(new Sale(START, cart, 55.0, 100.0, 45.0, "POS01-000042"));
+            journal.append(new Sale(START.plusMinutes(1), cart, 55.0, 0, 0)); // Recorded without a receipt
+        }
+
+        List<Sale> sales = SalesJournal.readSales(file);
+        assertEquals("POS01-000042", sales.get(0).getReceiptNumber());
+        assertEquals(45.0, sales.get(0).getChangeAmount(), 0.0);
+        assertNull(sales.get(1).getReceiptNumber());
+        assertEquals("Latte", sales.get(1).getCart().getProduct(0).getName());
+    }
+
+    @Test
+    public void dropsATornRecordAtTheEnd() throws IOException {
+        File file = folder.newFile("journal.bin");
+        long[] ends = writeSales(file, 5);
+        truncate(file, ends[4] - 7); // Crash in the middle of writing sale 5
+
+        assertEquals(4, SalesJournal.readSales(file).size());
+        try (SalesJournal journal = new SalesJournal(file)) {
+            assertEquals(ends[3], file.length());
+            journal.append(sale(9));
+        }
+        assertEquals(5, SalesJournal.readSales(file).size());
+        assertEquals(0, corruptCopies().size());
+    }
+
+    @Test
+    public void dropsAZeroFilledTail() throws IOException {
+        File file = folder.newFile("journal.bin");
+        long[] ends = writeSales(file, 3);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(ends[2] + 200); // Size updated but data never written
+        }
+
+        new SalesJournal(file).close();
+        assertEquals(ends[2], file.length());
+        assertEquals(3, SalesJournal.readSales(file).size());
+    }
+
+    @Test
+    public void keepsEveryIntactRecordAfterACorruptOne() throws IOException {
+        File file = folder.newFile("journal.bin");
+        long[] ends = writeSales(file, 5);
+        byte[] original = flipByte(file, ends[0] + 20); // Inside the payload of sale 2
+
+        List<Sale> replayed = SalesJournal.readSales(file);
+        assertEquals(Arrays.asList(0, 2, 3, 4), minutes(replayed));
+
+        try (SalesJournal journal = new SalesJournal(file)) {
+            journal.append(sale(5));
+        }
+        assertEquals(Arrays.asList(0, 2, 3, 4, 5), minutes(SalesJournal.readSales(file)));
+
+        List<File> copies = corruptCopies();
+        assertEquals(1, copies.size());
+        assertArrayEquals(original, Files.readAllBytes(copies.get(0).toPath()));
+    }
+
+    @Test
+    public void resynchronizesAfterADamagedLengthField() throws IOException {
+        File file = folder.newFile("journal.bin");
+        long[] ends = writeSales(file, 4);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(ends[0]);
+            raf.writeInt(1 << 20); // Length of sale 2 now points past the end
+        }
+
+        new SalesJournal(file).close();
+        assertEquals(Arrays.asList(0, 2, 3), minutes(SalesJournal.readSales(file)));
+        assertEquals(1, corruptCopies().size());
+    }
+
+    @Test
+    public void damagedHeaderIsSetAsideWithoutLosingSales() throws IOException {
+        File file = folder.newFile("journal.bin");
+        writeSales(file, 3);
+        flipByte(file, 0);
+
+        try (SalesJournal journal = new SalesJournal(file)) {
+            journal.append(sale(3));
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3), minutes(SalesJournal.readSales(file)));
+        assertEquals(1, corruptCopies().size());
+    }
+
+    @Test
+    public void startsOverAfterATornHeader() throws IOException {
+        File file = folder.newFile("journal.bin");
+        Files.write(file.toPath(), new byte[] { 0x43, 0x4A, 0x52 });
+
+        try (SalesJournal journal = new SalesJournal(file)) {
+            journal.append(sale(0));
+        }
+        assertEquals(1, SalesJournal.readSales(file).size());
+    }
+
+    @Test
+    public void missingFileHasNoSales() throws IOException {
+        assertTrue(SalesJournal.readSales(new File(folder.getRoot(), "none.bin")).isEmpty());
+    }
+
+    // Writes sales 0..count-1 and returns the file length after each one
+    private static long[] writeSales(File file, int count) throws IOException {
+        long[] ends = new long[count];
+        try (SalesJournal journal = new SalesJournal(file)) {
+            for (int i = 0; i < count; i++) {
+                journal.append(sale(i));
+                ends[i] = file.length();
+            }
+        }
+        return ends;
+    }
+
+    private static Sale sale(int minute) {
+        Cart cart = new Cart();
+        cart.add(new Product(1, "ลาเต้", 55.0), minute + 1);
+        cart.add(new Product(2, "Mocha", 60.5));
+        double total = cart.getTotalAmount();
+        return new Sale(START.plusMinutes(minute), cart, total, total + 10, 10);
+    }
+
+    private static List<Integer> minutes(List<Sale> sales) {
+        List<Integer> minutes = new ArrayList<>();
+        for (Sale sale : sales) {
+            minutes.add(sale.getSaleDateTime().getMinute());
+        }
+        return minutes;
+    }
+
+    private List<File> corruptCopies() {
+        List<File> copies = new ArrayList<>();
+        for (File file : folder.getRoot().listFiles()) {
+            if (file.getName().contains(".corrupt-")) {
+                copies.add(file);
+            }
+        }
+        return copies;
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    // Flips one byte and returns the file as it was after the damage
+    private static byte[] flipByte(File file, long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+        return Files.readAllBytes(file.toPath());
+    }
+}
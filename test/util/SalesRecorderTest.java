@@ -0,0 +1,168 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SalesRecorderTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+    private static final Product LATTE = new Product(1, "Latte", 55.0);
+    private static final Product MOCHA = new Product(2, "Mocha", 60.5);
+
+    @Test
+    public void liveCountersAndSnapshotAgree() {
+        SalesRecorder recorder = new SalesRecorder(DAY, 4);
+        recorder.record(sale(9, 2, 0));
+        recorder.record(sale(10, 1, 3));
+
+        assertEquals(2, recorder.getTransactionCount());
+        assertEquals(2 * 5500 + 5500 + 3 * 6050, recorder.getRevenueSatang());
+        assertEquals(6, recorder.getItemCount());
+        assertEquals(3, recorder.getProductQuantity("Latte"));
+        assertEquals(3, recorder.getProductQuantity("Mocha"));
+        assertEquals(0, recorder.getProductQuantity("Tea"));
+        assertEquals(Long.valueOf(3), recorder.getProductQuantities().get("Mocha"));
+
+        SalesAggregates aggregates = recorder.snapshotAggregates();
+        assertEquals(DAY, aggregates.getDate());
+        assertEquals(2, aggregates.getTransactionCount());
+        assertEquals(6, aggregates.getTotalItems());
+        assertEquals(3, aggregates.getQuantity("Latte"));
+        assertEquals(recorder.getRevenueSatang(), Math.round(aggregates.getTotalRevenue() * 100));
+    }
+
+    @Test
+    public void snapshotListsSalesFromEveryTillInTimeOrder() throws InterruptedException {
+        SalesRecorder recorder = new SalesRecorder(DAY, 8);
+        List<Thread> tills = new ArrayList<>();
+        for (int till = 0; till < 4; till++) {
+            int first = till;
+            tills.add(new Thread(() -> {
+                for (int hour = first; hour < 24; hour += 4) { // Each till records its own hours in order
+                    recorder.record("T" + first, sale(hour, 1, 0));
+                }
+            }));
+        }
+        tills.forEach(Thread::start);
+        for (Thread till : tills) {
+            till.join();
+        }
+
+        List<Sale> sales = recorder.snapshot().getSales();
+        assertEquals(24, sales.size());
+        for (int hour = 0; hour < 24; hour++) {
+            assertEquals(hour, sales.get(hour).getSaleDateTime().getHour());
+        }
+    }
+
+    @Test
+    public void snapshotsTakenDuringConcurrentSalesAreConsistent() throws Exception {
+        SalesRecorder recorder = new SalesRecorder(DAY, 4);
+        int tills = 4;
+        int salesPerTill = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> inconsistency = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                SalesRecorder.Snapshot snapshot = recorder.snapshot();
+                List<Sale> sales = snapshot.getSales();
+                long items = 0;
+                for (Sale sale : sales) {
+                    items += sale.getCart().getTotalQuantity();
+                }
+                SalesAggregates aggregates = snapshot.getAggregates();
+                if (sales.size() != aggregates.getTransactionCount() || items != aggregates.getTotalItems()) {
+                    inconsistency.compareAndSet(null, sales.size() + " sales with " + items + " items, aggregates "
+                            + aggregates.getTransactionCount() + " with " + aggregates.getTotalItems());
+                }
+            }
+        });
+        List<Thread> writers = new ArrayList<>();
+        for (int till = 0; till < tills; till++) {
+            String terminalId = "T" + till;
+            writers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < salesPerTill; i++) {
+                    recorder.record(terminalId, sale(12, 1, 1));
+                }
+            }));
+        }
+        reader.start();
+        writers.forEach(Thread::start);
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(inconsistency.get());
+        int total = tills * salesPerTill;
+        assertEquals(total, recorder.getTransactionCount());
+        assertEquals(2L * total, recorder.getItemCount());
+        assertEquals((long) total * (5500 + 6050), recorder.getRevenueSatang());
+        SalesRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(total, snapshot.getSales().size());
+        assertEquals(total, snapshot.getAggregates().getQuantity("Mocha"));
+    }
+
+    @Test
+    public void eachTillAppendsToItsOwnStripeWhicheverThreadRecords() {
+        SalesRecorder recorder = new SalesRecorder(DAY, 4);
+        // One thread (like the EDT) records for two tills, all at the same time of day
+        for (int i = 1; i <= 2; i++) {
+            recorder.record("A", sale(12, 1, 0, "A-" + i));
+            recorder.record("B", sale(12, 1, 0, "B-" + i));
+        }
+
+        // Equal times keep each stripe's order, and stripes are listed in turn
+        List<String> numbers = new ArrayList<>();
+        for (Sale sale : recorder.snapshot().getSales()) {
+            numbers.add(sale.getReceiptNumber());
+        }
+        assertEquals(Arrays.asList("A-1", "A-2", "B-1", "B-2"), numbers);
+        assertEquals(4, recorder.getTransactionCount());
+    }
+
+    @Test
+    public void emptyRecorderHasNoSales() {
+        SalesRecorder recorder = new SalesRecorder(DAY);
+        assertTrue(recorder.snapshot().getSales().isEmpty());
+        assertEquals(0, recorder.snapshotAggregates().getTransactionCount());
+        assertTrue(recorder.getProductQuantities().isEmpty());
+    }
+
+    private static Sale sale(int hour, int lattes, int mochas) {
+        return sale(hour, lattes, mochas, null);
+    }
+
+    private static Sale sale(int hour, int lattes, int mochas, String receiptNumber) {
+        Cart cart = new Cart();
+        if (lattes > 0) {
+            cart.add(LATTE, lattes);
+        }
+        if (mochas > 0) {
+            cart.add(MOCHA, mochas);
+        }
+        return new Sale(DAY.atTime(hour, 0), cart, cart.getTotalAmount(), 0, 0, receiptNumber);
+    }
+}
@@ -0,0 +1,170 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SalesTrackerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsAndPersistsSales() throws IOException {
+        String dir = folder.getRoot().getPath();
+        SalesTracker tracker = new SalesTracker(dir);
+        try {
+            assertNull(tracker.getPersistenceFailure());
+            tracker.recordSale(cart(2), 110.0, 200.0, 90.0);
+            tracker.flush();
+            assertEquals(1, tracker.getTodaysAggregates().getTransactionCount());
+        } finally {
+            tracker.close();
+        }
+        assertEquals(1, SalesJournal.readSales(new SalesHistoryLoader(dir).getJournalFile(LocalDate.now())).size());
+    }
+
+    @Test
+    public void refusesSalesWhenTheJournalCannotBeOpened() throws IOException {
+        String dir = folder.getRoot().getPath();
+        File journal = new SalesHistoryLoader(dir).getJournalFile(LocalDate.now());
+        if (!journal.mkdirs()) { // A directory in the journal's place cannot be opened for writing
+            throw new IOException("Cannot create " + journal);
+        }
+
+        SalesTracker tracker = new SalesTracker(dir);
+        try {
+            assertNotNull(tracker.getPersistenceFailure());
+            try {
+                tracker.recordSale(cart(1), 55.0, 0, 0);
+                fail("Sale accepted although it cannot be saved");
+            } catch (IllegalStateException expected) {
+                assertEquals(0, tracker.getTodaysAggregates().getTransactionCount());
+            }
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void rollsOverToANewDayBeforeTheFirstSale() throws Exception {
+        String dir = folder.getRoot().getPath();
+        MutableClock clock = new MutableClock(LocalDateTime.of(2024, 5, 1, 21, 0));
+        SalesTracker tracker = new SalesTracker(dir, clock);
+        try {
+            tracker.recordSale(cart(2), 110.0, 0, 0);
+            tracker.flush();
+
+            // Left running overnight; no sale yet on the new day
+            clock.set(LocalDateTime.of(2024, 5, 2, 8, 0));
+            assertEquals(0, tracker.getTodaysAggregates().getTransactionCount());
+            assertEquals(LocalDate.of(2024, 5, 2), tracker.getTodaysRecorder().getDate());
+            assertTrue(tracker.loadSalesFromDate(LocalDate.of(2024, 5, 2)).isEmpty());
+            assertEquals(1, tracker.loadSalesFromDate(LocalDate.of(2024, 5, 1)).size());
+
+            tracker.requestDailySummary().get(10, TimeUnit.SECONDS); // Queued behind yesterday's rewrite
+            String today = readFile(new File(dir, "sales_summary_2024-05-02.txt"));
+            assertTrue(today, today.contains("ไม่มียอดขายในวันนี้"));
+            String yesterday = readFile(new File(dir, "sales_summary_2024-05-01.txt"));
+            assertTrue(yesterday, yesterday.contains("฿110.00"));
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void saleFromBeforeMidnightArrivingAfterTheRolloverCountsForItsOwnDay() throws Exception {
+        String dir = folder.getRoot().getPath();
+        MutableClock clock = new MutableClock(LocalDateTime.of(2024, 5, 1, 21, 0));
+        SalesTracker tracker = new SalesTracker(dir, clock);
+        try {
+            tracker.recordSale(cart(2), 110.0, 0, 0);
+
+            clock.set(LocalDateTime.of(2024, 5, 2, 0, 0, 1));
+            assertEquals(0, tracker.getTodaysAggregates().getTransactionCount()); // Rolled over
+
+            clock.set(LocalDateTime.of(2024, 5, 1, 23, 59, 59)); // Sale timed just before midnight
+            tracker.recordSale(cart(1), 55.0, 0, 0);
+            clock.set(LocalDateTime.of(2024, 5, 2, 0, 0, 2));
+            tracker.requestDailySummary().get(10, TimeUnit.SECONDS);
+
+            assertEquals(0, tracker.getTodaysAggregates().getTransactionCount());
+            assertEquals(2, tracker.loadSalesFromDate(LocalDate.of(2024, 5, 1)).size());
+            String yesterday = readFile(new File(dir, "sales_summary_2024-05-01.txt"));
+            assertTrue(yesterday, yesterday.contains("฿165.00"));
+            assertTrue(yesterday, yesterday.contains("2 ครั้ง"));
+        } finally {
+            tracker.close();
+        }
+    }
+
+    @Test
+    public void requestedSummaryIsWrittenOnTheSummaryThread() throws Exception {
+        String dir = folder.getRoot().getPath();
+        SalesTracker tracker = new SalesTracker(dir, new MutableClock(LocalDateTime.of(2024, 5, 1, 9, 0)));
+        try {
+            tracker.recordSale(cart(3), 165.0, 0, 0);
+            tracker.requestDailySummary().get(10, TimeUnit.SECONDS);
+            String summary = readFile(new File(tracker.getDailySummaryFilePath()));
+            assertTrue(summary, summary.contains("฿165.00"));
+        } finally {
+            tracker.close();
+        }
+    }
+
+    private static String readFile(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(LocalDateTime time) {
+            set(time);
+        }
+
+        void set(LocalDateTime time) {
+            now = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static Cart cart(int lattes) {
+        Cart cart = new Cart();
+        cart.add(new Product(1, "Latte", 55.0), lattes);
+        return cart.snapshot();
+    }
+}
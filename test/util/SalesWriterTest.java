@@ -0,0 +1,173 @@
+package util;
+
+import model.Cart;
+import model.Product;
+import model.Sale;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SalesWriterTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shutdownDrainsEverythingQueued() throws IOException {
+        SalesWriter writer = new SalesWriter(this::journalFile, 8); // Small queue: submits block
+        for (int i = 0; i < 500; i++) {
+            writer.submit(sale(DAY, i));
+        }
+        writer.shutdown();
+
+        assertEquals(500, SalesJournal.readSales(journalFile(DAY)).size());
+        assertEquals(500, writer.getWrittenCount());
+        assertEquals(0, writer.getFailedCount());
+        assertTrue(writer.getMaxQueueDepth() <= 8);
+    }
+
+    @Test
+    public void flushWaitsUntilSalesAreOnDisk() throws Exception {
+        SalesWriter writer = new SalesWriter(this::journalFile);
+        try {
+            writer.submit(sale(DAY, 0));
+            writer.submit(sale(DAY, 1));
+            assertTrue(writer.flush(10, TimeUnit.SECONDS));
+            assertEquals(2, SalesJournal.readSales(journalFile(DAY)).size());
+        } finally {
+            writer.shutdown();
+        }
+        assertTrue(writer.flush(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void writesEachDayToItsOwnJournal() throws IOException {
+        SalesWriter writer = new SalesWriter(this::journalFile);
+        writer.submit(sale(DAY, 0));
+        writer.submit(sale(DAY.plusDays(1), 1));
+        writer.submit(sale(DAY.plusDays(1), 2));
+        writer.shutdown();
+
+        assertEquals(1, SalesJournal.readSales(journalFile(DAY)).size());
+        assertEquals(2, SalesJournal.readSales(journalFile(DAY.plusDays(1))).size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsSalesAfterShutdown() {
+        SalesWriter writer = new SalesWriter(this::journalFile);
+        writer.shutdown();
+        writer.submit(sale(DAY, 0));
+    }
+
+    @Test
+    public void everyAcceptedSaleIsWrittenWhenShutdownRaces() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            LocalDate day = DAY.plusDays(round);
+            SalesWriter writer = new SalesWriter(this::journalFile, 4);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> tills = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread till = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 1000; i++) {
+                        try {
+                            writer.submit(sale(day, i));
+                            accepted.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            return; // Shut down: later sales are refused, never lost
+                        }
+                    }
+                });
+                till.start();
+                tills.add(till);
+            }
+            started.await();
+            writer.shutdown();
+            for (Thread till : tills) {
+                till.join();
+            }
+            assertEquals(accepted.get(), SalesJournal.readSales(journalFile(day)).size());
+        }
+    }
+
+    @Test
+    public void refusesSalesOnceAWriteFailed() throws Exception {
+        File blocked = journalFile(DAY.plusDays(1));
+        if (!blocked.mkdirs()) {
+            throw new IOException("Cannot create " + blocked);
+        }
+        SalesWriter writer = new SalesWriter(this::journalFile);
+        try {
+            writer.submit(sale(DAY.plusDays(1), 0));
+            writer.flush(10, TimeUnit.SECONDS);
+            assertEquals(1, writer.getFailedCount());
+            try {
+                writer.submit(sale(DAY, 1));
+                fail("Sale accepted after a failed write");
+            } catch (IllegalStateException expected) {
+                assertTrue(writer.getFailure() != null);
+            }
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    public void aSaleThatCannotBeEncodedDoesNotStopTheWriter() throws Exception {
+        SalesWriter writer = new SalesWriter(this::journalFile, 2);
+        try {
+            writer.submit(new Sale(null, new Cart(), 0, 0, 0)); // No time: write() throws
+            for (int i = 0; i < 10; i++) {
+                writer.submit(sale(DAY, i)); // Would block forever on the small queue if the writer had died
+            }
+            assertTrue(writer.flush(10, TimeUnit.SECONDS));
+            assertEquals(1, writer.getFailedCount());
+            assertEquals(10, writer.getWrittenCount());
+            assertNull(writer.getFailure());
+        } finally {
+            writer.shutdown();
+        }
+        assertEquals(10, SalesJournal.readSales(journalFile(DAY)).size());
+    }
+
+    @Test
+    public void opensTheJournalOfTheClocksDay() throws Exception {
+        Clock clock = Clock.fixed(DAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        SalesWriter writer = new SalesWriter(this::journalFile, 8, clock);
+        try {
+            assertTrue(writer.flush(10, TimeUnit.SECONDS));
+            assertTrue(journalFile(DAY).exists());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private File journalFile(LocalDate date) {
+        return new File(folder.getRoot(), "daily_sales_" + date + SalesJournal.FILE_EXTENSION);
+    }
+
+    private static Sale sale(LocalDate day, int second) {
+        Cart cart = new Cart();
+        cart.add(new Product(1, "Latte", 55.0));
+        return new Sale(day.atStartOfDay().plusSeconds(second), cart, 55.0, 0, 0);
+    }
+}
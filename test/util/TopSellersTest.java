@@ -0,0 +1,107 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TopSellersTest {
+
+    @Test
+    public void ranksByQuantityHighestFirst() {
+        TopSellers ranking = new TopSellers();
+        ranking.add("Latte", 3);
+        ranking.add("Mocha", 5);
+        ranking.add("Tea", 1);
+
+        assertEquals(Arrays.asList("Mocha", "Latte", "Tea"), names(ranking.top(3)));
+        assertEquals(5, (int) ranking.top(1).get(0).getValue());
+        assertEquals(3, ranking.getQuantity("Latte"));
+        assertEquals(0, ranking.getQuantity("Donut"));
+    }
+
+    @Test
+    public void tiesKeepTheOrderInWhichTheyWereReached() {
+        TopSellers ranking = new TopSellers();
+        ranking.add("Latte", 2);
+        ranking.add("Mocha", 2);
+        assertEquals(Arrays.asList("Latte", "Mocha"), names(ranking.top(2)));
+
+        ranking.add("Mocha", 1);
+        assertEquals(Arrays.asList("Mocha", "Latte"), names(ranking.top(2)));
+
+        // Drawing level is not overtaking
+        ranking.add("Latte", 1);
+        assertEquals(Arrays.asList("Mocha", "Latte"), names(ranking.top(2)));
+    }
+
+    @Test
+    public void aSaleCanOvertakeSeveralProductsAtOnce() {
+        TopSellers ranking = new TopSellers();
+        ranking.add("Latte", 5);
+        ranking.add("Mocha", 4);
+        ranking.add("Tea", 3);
+        ranking.add("Donut", 1);
+
+        ranking.add("Donut", 5);
+
+        assertEquals(Arrays.asList("Donut", "Latte", "Mocha", "Tea"), names(ranking.top(4)));
+    }
+
+    @Test
+    public void topIsCutAtTheNumberOfProducts() {
+        TopSellers ranking = new TopSellers();
+        assertTrue(ranking.top(5).isEmpty());
+
+        ranking.add("Latte", 1);
+        ranking.add("Mocha", 2);
+        assertEquals(2, ranking.top(10).size());
+        assertTrue(ranking.top(0).isEmpty());
+        assertEquals(2, ranking.size());
+    }
+
+    @Test
+    public void staysOrderedPastTheInitialCapacity() {
+        TopSellers ranking = new TopSellers();
+        for (int i = 1; i <= 40; i++) {
+            ranking.add("Product " + i, i);
+        }
+
+        List<Map.Entry<String, Integer>> top = ranking.top(40);
+        assertEquals(40, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals("Product " + (40 - i), top.get(i).getKey());
+        }
+    }
+
+    @Test
+    public void addAllMergesAndCopiesAreIndependent() {
+        TopSellers morning = new TopSellers();
+        morning.add("Latte", 3);
+        morning.add("Tea", 1);
+        TopSellers afternoon = new TopSellers();
+        afternoon.add("Tea", 4);
+        afternoon.add("Mocha", 2);
+
+        TopSellers day = morning.copy();
+        day.addAll(afternoon);
+
+        assertEquals(Arrays.asList("Tea", "Latte", "Mocha"), names(day.top(3)));
+        assertEquals(5, day.getQuantity("Tea"));
+        assertEquals(1, morning.getQuantity("Tea"));
+        assertEquals(2, morning.size());
+    }
+
+    private static List<String> names(List<Map.Entry<String, Integer>> entries) {
+        List<String> names = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries) {
+            names.add(entry.getKey());
+        }
+        return names;
+    }
+}
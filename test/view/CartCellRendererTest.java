@@ -0,0 +1,73 @@
+package view;
+
+import org.junit.Test;
+
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.border.Border;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class CartCellRendererTest {
+    private final CartPanel.CartCellRenderer renderer = new CartPanel.CartCellRenderer();
+    private final JTable table = new JTable(4, 5);
+
+    @Test
+    public void everyCellIsPaintedWithTheSameComponent() {
+        Component first = render("Latte", false, 0, CartTableModel.PRODUCT_COLUMN);
+        Component second = render(2, true, 3, CartTableModel.QUANTITY_COLUMN);
+        assertSame(renderer, first);
+        assertSame(renderer, second);
+    }
+
+    @Test
+    public void reusesItsFontsAndBorderInsteadOfBuildingNewOnes() {
+        render("Latte", false, 0, CartTableModel.PRODUCT_COLUMN);
+        Font nameFont = renderer.getFont();
+        Border padding = renderer.getBorder();
+
+        render("฿65.00", false, 1, CartTableModel.TOTAL_COLUMN);
+        Font moneyFont = renderer.getFont();
+        render("Mocha", true, 2, CartTableModel.PRODUCT_COLUMN);
+
+        assertSame(nameFont, renderer.getFont());
+        assertSame(padding, renderer.getBorder());
+        render("฿80.00", false, 3, CartTableModel.TOTAL_COLUMN);
+        assertSame(moneyFont, renderer.getFont());
+    }
+
+    @Test
+    public void alternatesRowsAndHighlightsTheSelection() {
+        render("Latte", false, 0, CartTableModel.QUANTITY_COLUMN);
+        Color evenRow = renderer.getBackground();
+        render("Latte", false, 1, CartTableModel.QUANTITY_COLUMN);
+        Color oddRow = renderer.getBackground();
+        render("Latte", true, 1, CartTableModel.QUANTITY_COLUMN);
+        Color selected = renderer.getBackground();
+
+        assertNotEquals(evenRow, oddRow);
+        assertNotEquals(oddRow, selected);
+        render("Latte", false, 2, CartTableModel.QUANTITY_COLUMN);
+        assertEquals(evenRow, renderer.getBackground());
+    }
+
+    @Test
+    public void alignsNamesLeftAndFiguresCentered() {
+        render("Latte", false, 0, CartTableModel.PRODUCT_COLUMN);
+        assertEquals(JLabel.LEFT, renderer.getHorizontalAlignment());
+        assertEquals("Latte", renderer.getText());
+
+        render(null, false, 0, CartTableModel.TOTAL_COLUMN);
+        assertEquals(JLabel.CENTER, renderer.getHorizontalAlignment());
+        assertEquals("", renderer.getText());
+    }
+
+    private Component render(Object value, boolean selected, int row, int column) {
+        return renderer.getTableCellRendererComponent(table, value, selected, false, row, column);
+    }
+}
@@ -0,0 +1,136 @@
+package view;
+
+import model.Cart;
+import model.Product;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CartTableModelTest {
+    private static final Product LATTE = new Product(1, "Latte", 55.0);
+    private static final Product MOCHA = new Product(2, "Mocha", 60.5);
+    private static final Product TEA = new Product(3, "Tea", 40.0);
+
+    private final CartTableModel model = new CartTableModel();
+    private final List<String> events = new ArrayList<>();
+    private final Cart cart = new Cart();
+
+    @Before
+    public void setUp() {
+        model.addTableModelListener(e -> events.add(describe(e)));
+    }
+
+    @Test
+    public void addingAProductInsertsOneRow() {
+        cart.add(LATTE);
+        show();
+        cart.add(MOCHA);
+        show();
+
+        assertEquals(list("insert 0-0", "insert 1-1"), events);
+        assertEquals(2, model.getRowCount());
+        assertEquals("Mocha", model.getValueAt(1, CartTableModel.PRODUCT_COLUMN));
+        assertEquals("฿60.50", model.getValueAt(1, CartTableModel.PRICE_COLUMN));
+    }
+
+    @Test
+    public void changingAQuantityUpdatesOnlyThatRow() {
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        show();
+        events.clear();
+
+        cart.add(MOCHA, 2);
+        show();
+        assertEquals(list("update 1-1"), events);
+        assertEquals("3", model.getValueAt(1, CartTableModel.QUANTITY_COLUMN));
+        assertEquals("฿181.50", model.getValueAt(1, CartTableModel.TOTAL_COLUMN));
+    }
+
+    @Test
+    public void removingALineDeletesThatRow() {
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        cart.add(TEA);
+        show();
+        events.clear();
+
+        cart.remove(MOCHA.getId());
+        show();
+        assertEquals(list("delete 1-1"), events);
+        assertEquals("Tea", model.getValueAt(1, CartTableModel.PRODUCT_COLUMN));
+        assertEquals("฿40.00", model.getValueAt(1, CartTableModel.TOTAL_COLUMN));
+    }
+
+    @Test
+    public void clearingDeletesEveryRow() {
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        show();
+        events.clear();
+
+        model.clear();
+        assertEquals(list("delete 0-1"), events);
+        assertEquals(0, model.getRowCount());
+    }
+
+    @Test
+    public void anotherEmptyCartFiresNothing() {
+        model.setCart(new Cart());
+        model.setCart(new Cart().snapshot());
+        model.clear();
+        assertTrue(events.toString(), events.isEmpty());
+    }
+
+    @Test
+    public void fillingAnEmptyTableInsertsAllRows() {
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        cart.add(TEA);
+        show();
+        assertEquals(list("insert 0-2"), events);
+        assertEquals("Tea", model.getValueAt(2, CartTableModel.PRODUCT_COLUMN));
+    }
+
+    @Test
+    public void unrelatedCartReplacesTheTable() {
+        cart.add(LATTE);
+        cart.add(MOCHA);
+        show();
+        events.clear();
+
+        Cart other = new Cart();
+        other.add(TEA);
+        other.add(LATTE, 4);
+        model.setCart(other);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0), events.get(0).startsWith("update 0-"));
+        assertEquals("Tea", model.getValueAt(0, CartTableModel.PRODUCT_COLUMN));
+        assertEquals("4", model.getValueAt(1, CartTableModel.QUANTITY_COLUMN));
+    }
+
+    private void show() {
+        model.setCart(cart);
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static String describe(TableModelEvent e) {
+        String type = e.getType() == TableModelEvent.INSERT ? "insert"
+                : e.getType() == TableModelEvent.DELETE ? "delete" : "update";
+        assertTrue("Invalid range " + e.getFirstRow() + "-" + e.getLastRow(), e.getFirstRow() <= e.getLastRow());
+        return type + " " + e.getFirstRow() + "-" + e.getLastRow();
+    }
+}